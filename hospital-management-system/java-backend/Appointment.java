@@ -1,19 +1,27 @@
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 /**
  * Appointment Entity Class
- * Represents an appointment in the hospital management system
+ * Represents an appointment in the hospital management system.
+ * Date and time are parsed once and held as LocalDate/LocalTime; the String
+ * accessors use the yyyy-MM-dd and HH:mm formats.
  */
 public class Appointment {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("H:mm");
+    static final int DEFAULT_DURATION_MINUTES = 30;
+    static final int SHORTEST_DURATION_MINUTES = 15;
+    
     private String appointmentId;
     private String patientId;
     private String patientName;
     private String doctorId;
     private String doctorName;
     private String department;
-    private String date;
-    private String time;
+    private LocalDate date;
+    private LocalTime time;
     private String type;
     private String notes;
     private AppointmentStatus status;
@@ -27,14 +35,14 @@ public class Appointment {
         this.patientId = patientId;
         this.patientName = patientName;
         this.doctorId = doctorId;
-        this.doctorName = doctorName;
-        this.department = department;
-        this.date = date;
-        this.time = time;
-        this.type = type;
+        this.doctorName = StringDictionary.DOCTOR_NAMES.canonicalize(doctorName);
+        this.department = StringDictionary.DEPARTMENTS.canonicalize(department);
+        this.date = parseDate(date);
+        this.time = parseTime(time);
+        this.type = StringDictionary.APPOINTMENT_TYPES.canonicalize(type);
         this.notes = notes;
         this.status = AppointmentStatus.SCHEDULED;
-        this.createdDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        this.createdDate = HospitalClock.today().toString();
     }
     
     // Getters
@@ -63,10 +71,18 @@ public class Appointment {
     }
     
     public String getDate() {
+        return date.toString();
+    }
+    
+    public LocalDate getLocalDate() {
         return date;
     }
     
     public String getTime() {
+        return time.toString();
+    }
+    
+    public LocalTime getLocalTime() {
         return time;
     }
     
@@ -92,31 +108,47 @@ public class Appointment {
     }
     
     public void setDoctorName(String doctorName) {
-        this.doctorName = doctorName;
+        this.doctorName = StringDictionary.DOCTOR_NAMES.canonicalize(doctorName);
     }
     
     public void setDepartment(String department) {
-        this.department = department;
+        this.department = StringDictionary.DEPARTMENTS.canonicalize(department);
+    }
+    
+    // Date, time, type and status decide where a stored appointment sits in the
+    // manager's status counts, date and page indexes and booking engine, so only
+    // AppointmentManager (via updateAppointmentStatus and rescheduleAppointment)
+    // and the archive reader change them
+    void setDate(String date) {
+        this.date = parseDate(date);
     }
     
-    public void setDate(String date) {
+    void setDate(LocalDate date) {
         this.date = date;
     }
     
-    public void setTime(String time) {
+    void setTime(String time) {
+        this.time = parseTime(time);
+    }
+    
+    void setTime(LocalTime time) {
         this.time = time;
     }
     
-    public void setType(String type) {
-        this.type = type;
+    void setType(String type) {
+        this.type = StringDictionary.APPOINTMENT_TYPES.canonicalize(type);
+    }
+    
+    void setStatus(AppointmentStatus status) {
+        this.status = status;
     }
     
     public void setNotes(String notes) {
         this.notes = notes;
     }
     
-    public void setStatus(AppointmentStatus status) {
-        this.status = status;
+    void setCreatedDate(String createdDate) {
+        this.createdDate = createdDate;
     }
     
     /**
@@ -124,8 +156,7 @@ public class Appointment {
      * @return true if appointment is today
      */
     public boolean isToday() {
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        return today.equals(this.date);
+        return date.equals(HospitalClock.today());
     }
     
     /**
@@ -133,8 +164,7 @@ public class Appointment {
      * @return true if appointment is in the future
      */
     public boolean isUpcoming() {
-        LocalDate appointmentDate = LocalDate.parse(this.date);
-        return appointmentDate.isAfter(LocalDate.now());
+        return date.isAfter(HospitalClock.today());
     }
     
     /**
@@ -142,8 +172,7 @@ public class Appointment {
      * @return true if appointment is in the past
      */
     public boolean isPast() {
-        LocalDate appointmentDate = LocalDate.parse(this.date);
-        return appointmentDate.isBefore(LocalDate.now());
+        return date.isBefore(HospitalClock.today());
     }
     
     /**
@@ -151,7 +180,19 @@ public class Appointment {
      * @return duration in minutes
      */
     public int getDurationMinutes() {
-        switch (type.toLowerCase()) {
+        return getDurationMinutes(getType());
+    }
+    
+    /**
+     * Get the duration of an appointment type in minutes (default 30 minutes)
+     * @param type Appointment type, or null for the default
+     * @return duration in minutes
+     */
+    static int getDurationMinutes(String type) {
+        if (type == null) {
+            return DEFAULT_DURATION_MINUTES;
+        }
+        switch (type.trim().toLowerCase()) {
             case "consultation":
                 return 30;
             case "follow-up":
@@ -161,8 +202,42 @@ public class Appointment {
             case "routine":
                 return 20;
             default:
-                return 30;
+                return DEFAULT_DURATION_MINUTES;
+        }
+    }
+    
+    /**
+     * Parse a date in yyyy-MM-dd format
+     * @param date Date text
+     * @return Parsed date
+     * @throws IllegalArgumentException if the date is missing or invalid
+     */
+    static LocalDate parseDate(String date) {
+        if (date != null) {
+            try {
+                return LocalDate.parse(date.trim());
+            } catch (DateTimeParseException e) {
+                // Reported below
+            }
+        }
+        throw new IllegalArgumentException("Invalid date, expected YYYY-MM-DD: " + date);
+    }
+    
+    /**
+     * Parse a time in HH:mm format (a single-digit hour is accepted)
+     * @param time Time text
+     * @return Parsed time
+     * @throws IllegalArgumentException if the time is missing or invalid
+     */
+    static LocalTime parseTime(String time) {
+        if (time != null) {
+            try {
+                return LocalTime.parse(time.trim(), TIME_FORMAT);
+            } catch (DateTimeParseException e) {
+                // Reported below
+            }
         }
+        throw new IllegalArgumentException("Invalid time, expected HH:MM: " + time);
     }
     
     @Override
@@ -170,7 +245,7 @@ public class Appointment {
         return "Appointment{" +
                 "appointmentId='" + appointmentId + '\'' +
                 ", patientName='" + patientName + '\'' +
-                ", doctorName='" + doctorName + '\'' +
+                ", doctorName='" + getDoctorName() + '\'' +
                 ", date='" + date + '\'' +
                 ", time='" + time + '\'' +
                 ", status=" + status +
@@ -0,0 +1,423 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Appointment Archive Class
+ * Cold storage for past appointments in a directory of append-only segment
+ * files. Each archival run writes one new segment; a segment is never
+ * changed after it is written. Appointments in a segment are sorted by
+ * patient and date and grouped into blocks that are deflate-compressed
+ * independently, and the segment ends with a compressed footer listing the
+ * appointments, patients and doctors of every block.
+ *
+ * Only the footers are read when the archive is opened. They make up an
+ * on-heap index from patient and doctor IDs to blocks, so a patient's
+ * history decompresses only the one or two blocks per segment holding it.
+ * Statuses are stored by constant name (from version 3; older segments
+ * stored ordinals), so reordering AppointmentStatus keeps segments readable.
+ * Reads share a read lock and run in parallel; appends are serialized and
+ * take the write lock only to add the new segment's footer to the index.
+ */
+class AppointmentArchive {
+    private static final int MAGIC = 0x484D5341; // "HMSA"
+    private static final int VERSION = 3;
+    private static final int ORDINAL_STATUS_VERSION = 2; // versions 1 and 2 store status ordinals
+    private static final int UNLISTED_IDS_VERSION = 1; // version 1 footers do not list appointment IDs
+    private static final int HEADER_SIZE = 8; // magic, version
+    private static final int TRAILER_SIZE = 16; // footer offset, footer length, magic
+    private static final int BLOCK_SIZE = 256;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    
+    private Path directory;
+    private List<Path> segments;
+    private List<Integer> segmentVersions;
+    private Map<String, List<BlockRef>> blocksByPatient;
+    private Map<String, List<BlockRef>> blocksByDoctor;
+    private int archivedCount;
+    private ReadWriteLock lock;
+    
+    /**
+     * Open or create an archive directory
+     * @param directory Archive directory
+     * @throws IOException if the directory cannot be created or holds a damaged segment
+     */
+    public AppointmentArchive(Path directory) throws IOException {
+        this(directory, appointmentId -> { });
+    }
+    
+    /**
+     * Open or create an archive directory, handing the ID of every archived
+     * appointment to a consumer, e.g. so new IDs do not repeat archived ones
+     * @param directory Archive directory
+     * @param archivedIds Receiver of the archived appointment IDs
+     * @throws IOException if the directory cannot be created or holds a damaged segment
+     */
+    public AppointmentArchive(Path directory, Consumer<String> archivedIds) throws IOException {
+        this.directory = directory;
+        this.segments = new ArrayList<>();
+        this.segmentVersions = new ArrayList<>();
+        this.lock = new ReentrantReadWriteLock();
+        this.blocksByPatient = new HashMap<>();
+        this.blocksByDoctor = new HashMap<>();
+        Files.createDirectories(directory);
+        
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        for (Path file : files) {
+            readFooter(file, archivedIds);
+        }
+    }
+    
+    /**
+     * Write appointments to a new segment
+     * @param batch Appointments to archive
+     * @throws IOException if the segment cannot be written
+     */
+    public synchronized void append(Collection<Appointment> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Path file = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segments.size() + 1, SEGMENT_SUFFIX));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        
+        List<Appointment> pending = new ArrayList<>(batch);
+        pending.sort(Comparator.comparing(Appointment::getPatientId)
+            .thenComparing(Appointment::getLocalDate)
+            .thenComparing(Appointment::getLocalTime));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            long position = HEADER_SIZE;
+            
+            ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            DataOutputStream footerOut = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(footer)));
+            footerOut.writeInt((pending.size() + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            for (int start = 0; start < pending.size(); start += BLOCK_SIZE) {
+                List<Appointment> block = pending.subList(start, Math.min(start + BLOCK_SIZE, pending.size()));
+                byte[] compressed = compressBlock(block);
+                out.writeInt(compressed.length);
+                out.write(compressed);
+                
+                footerOut.writeLong(position);
+                footerOut.writeInt(block.size());
+                writeIds(footerOut, block, Appointment::getAppointmentId);
+                writeIds(footerOut, block, Appointment::getPatientId);
+                writeIds(footerOut, block, Appointment::getDoctorId);
+                position += 4 + compressed.length;
+            }
+            footerOut.close();
+            
+            out.write(footer.toByteArray());
+            out.writeLong(position);
+            out.writeInt(footer.size());
+            out.writeInt(MAGIC);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        lock.writeLock().lock();
+        try {
+            readFooter(file, appointmentId -> { });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the archived appointments of a patient
+     * @param patientId Patient ID
+     * @return Archived appointments, oldest segment first
+     * @throws UncheckedIOException if a segment cannot be read
+     */
+    public List<Appointment> getByPatient(String patientId) {
+        lock.readLock().lock();
+        try {
+            return read(blocksByPatient.get(patientId), patientId, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Get the archived appointments of a doctor
+     * @param doctorId Doctor ID
+     * @return Archived appointments, oldest segment first
+     * @throws UncheckedIOException if a segment cannot be read
+     */
+    public List<Appointment> getByDoctor(String doctorId) {
+        lock.readLock().lock();
+        try {
+            return read(blocksByDoctor.get(doctorId), null, doctorId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int getArchivedCount() {
+        lock.readLock().lock();
+        try {
+            return archivedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Read the appointments of a patient or doctor from a list of blocks
+     */
+    private List<Appointment> read(List<BlockRef> blocks, String patientId, String doctorId) {
+        List<Appointment> result = new ArrayList<>();
+        if (blocks == null) {
+            return result;
+        }
+        FileChannel channel = null;
+        int openSegment = -1;
+        try {
+            // Blocks are listed in segment order, so each segment is opened once
+            for (BlockRef block : blocks) {
+                if (block.segment != openSegment) {
+                    if (channel != null) {
+                        channel.close();
+                    }
+                    channel = FileChannel.open(segments.get(block.segment), StandardOpenOption.READ);
+                    openSegment = block.segment;
+                }
+                readBlock(channel, block, segmentVersions.get(block.segment), patientId, doctorId, result);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read appointment archive: " + directory, e);
+        } finally {
+            closeQuietly(channel);
+        }
+        return result;
+    }
+    
+    private void readFooter(Path file, Consumer<String> archivedIds) throws IOException {
+        int segment = segments.size();
+        int version;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+            version = size < HEADER_SIZE + TRAILER_SIZE || header.getInt() != MAGIC ? 0 : header.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Not an appointment archive segment: " + file);
+            }
+            ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            int footerLength = trailer.getInt();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException("Damaged appointment archive segment: " + file);
+            }
+            
+            ByteBuffer footer = readFully(channel, footerOffset, footerLength);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(
+                    new ByteArrayInputStream(footer.array()))))) {
+                int blockCount = in.readInt();
+                for (int i = 0; i < blockCount; i++) {
+                    BlockRef block = new BlockRef(segment, in.readLong());
+                    archivedCount += in.readInt();
+                    if (version == UNLISTED_IDS_VERSION) {
+                        // The IDs are only in the block itself
+                        List<Appointment> appointments = new ArrayList<>();
+                        readBlock(channel, block, version, null, null, appointments);
+                        for (Appointment appointment : appointments) {
+                            archivedIds.accept(appointment.getAppointmentId());
+                        }
+                    } else {
+                        int appointmentCount = in.readInt();
+                        for (int j = 0; j < appointmentCount; j++) {
+                            archivedIds.accept(in.readUTF());
+                        }
+                    }
+                    int patientCount = in.readInt();
+                    for (int j = 0; j < patientCount; j++) {
+                        blocksByPatient.computeIfAbsent(in.readUTF(), key -> new ArrayList<>()).add(block);
+                    }
+                    int doctorCount = in.readInt();
+                    for (int j = 0; j < doctorCount; j++) {
+                        blocksByDoctor.computeIfAbsent(in.readUTF(), key -> new ArrayList<>()).add(block);
+                    }
+                }
+            }
+        }
+        segments.add(file);
+        segmentVersions.add(version);
+    }
+    
+    /**
+     * Decode the appointments of a block that match a patient or doctor ID;
+     * the others are skipped without building an Appointment
+     */
+    private static void readBlock(FileChannel channel, BlockRef block, int version, String patientId,
+                                  String doctorId, List<Appointment> result) throws IOException {
+        int length = readFully(channel, block.offset, 4).getInt();
+        ByteBuffer compressed = readFully(channel, block.offset + 4, length);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(compressed.array()))))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Appointment appointment = readAppointment(in, version, patientId, doctorId);
+                if (appointment != null) {
+                    result.add(appointment);
+                }
+            }
+        }
+    }
+    
+    private static byte[] compressBlock(List<Appointment> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(bytes)))) {
+            out.writeInt(block.size());
+            for (Appointment appointment : block) {
+                writeAppointment(out, appointment);
+            }
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Write the distinct appointment, patient or doctor IDs of a block
+     */
+    private static void writeIds(DataOutputStream out, List<Appointment> block,
+                                 Function<Appointment, String> idFunction) throws IOException {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Appointment appointment : block) {
+            ids.add(idFunction.apply(appointment));
+        }
+        out.writeInt(ids.size());
+        for (String id : ids) {
+            out.writeUTF(id);
+        }
+    }
+    
+    private static void writeAppointment(DataOutputStream out, Appointment appointment) throws IOException {
+        out.writeUTF(appointment.getAppointmentId());
+        out.writeUTF(appointment.getPatientId());
+        writeString(out, appointment.getPatientName());
+        out.writeUTF(appointment.getDoctorId());
+        writeString(out, appointment.getDoctorName());
+        writeString(out, appointment.getDepartment());
+        out.writeLong(appointment.getLocalDate().toEpochDay());
+        out.writeShort(AppointmentBookingEngine.minuteOfDay(appointment.getLocalTime()));
+        writeString(out, appointment.getType());
+        writeString(out, appointment.getNotes());
+        out.writeUTF(appointment.getStatus().name());
+        writeString(out, appointment.getCreatedDate());
+    }
+    
+    private static Appointment readAppointment(DataInputStream in, int version, String matchPatientId,
+                                               String matchDoctorId) throws IOException {
+        String appointmentId = in.readUTF();
+        String patientId = in.readUTF();
+        String patientName = readString(in);
+        String doctorId = in.readUTF();
+        String doctorName = readString(in);
+        String department = readString(in);
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        int minute = in.readShort();
+        String type = readString(in);
+        String notes = readString(in);
+        AppointmentStatus status = version <= ORDINAL_STATUS_VERSION ?
+            AppointmentStatus.values()[in.readByte()] : readStatus(in);
+        String createdDate = readString(in);
+        if ((matchPatientId != null && !matchPatientId.equals(patientId)) ||
+            (matchDoctorId != null && !matchDoctorId.equals(doctorId))) {
+            return null;
+        }
+        
+        Appointment appointment = new Appointment(appointmentId, patientId, patientName, doctorId, doctorName,
+            department, date.toString(), LocalTime.of(minute / 60, minute % 60).toString(), type, notes);
+        appointment.setStatus(status);
+        appointment.setCreatedDate(createdDate);
+        return appointment;
+    }
+    
+    private static AppointmentStatus readStatus(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        try {
+            return AppointmentStatus.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown appointment status in archive segment: " + name);
+        }
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing was written through the channel
+            }
+        }
+    }
+    
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Truncated appointment archive segment");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    /**
+     * Position of one compressed block
+     */
+    private static class BlockRef {
+        private final int segment;
+        private final long offset;
+        
+        BlockRef(int segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+}
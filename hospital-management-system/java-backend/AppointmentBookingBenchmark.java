@@ -0,0 +1,167 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Appointment Booking Benchmark Class
+ * Runnable contention benchmark for the lock-free booking engine. For 1 to
+ * 64 threads, every thread books appointments of mixed types at random
+ * times of four doctors over five days and reschedules some of the
+ * appointments it booked, so threads keep racing for overlapping time.
+ * Afterwards no two active appointments of a doctor may overlap, and every
+ * minute must be reserved exactly when an active appointment covers it
+ * (no lost or leaked reservations).
+ *
+ * Usage: java AppointmentBookingBenchmark [operationsPerThread]
+ * Exits with status 1 if any check fails.
+ */
+public class AppointmentBookingBenchmark {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final String[] DOCTOR_IDS = {"D001", "D002", "D003", "D004"};
+    private static final String[] TYPES = {"Consultation", "Follow-up", "Emergency", "Routine"};
+    private static final int DAYS = 5;
+    private static final int FIRST_MINUTE = 8 * 60;
+    private static final int LAST_MINUTE = 17 * 60;
+    
+    public static void main(String[] args) throws Exception {
+        int operationsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        PrintStream console = System.out;
+        boolean passed = true;
+        
+        console.printf("%-8s %14s %10s %10s %12s %s%n",
+            "Threads", "Operations/s", "Booked", "Conflicts", "Rescheduled", "Result");
+        for (int threads : THREAD_COUNTS) {
+            // Booking messages would dominate the timing
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            RunResult result;
+            try {
+                result = run(threads, operationsPerThread);
+            } finally {
+                System.setOut(console);
+            }
+            console.printf("%-8d %14.0f %10d %10d %12d %s%n", threads, result.operationsPerSecond,
+                result.booked, result.conflicts, result.rescheduled, result.failures.isEmpty() ? "ok" : "FAILED");
+            for (String failure : result.failures) {
+                console.println("  " + failure);
+            }
+            passed &= result.failures.isEmpty();
+        }
+        console.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+    
+    private static RunResult run(int threads, int operationsPerThread) throws Exception {
+        AppointmentManager manager = new AppointmentManager();
+        LocalDate firstDay = HospitalClock.today().plusDays(1);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> counts = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            counts.add(pool.submit(() -> {
+                Random random = new Random(thread);
+                List<String> booked = new ArrayList<>();
+                long[] threadCounts = new long[3]; // booked, conflicts, rescheduled
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    String doctorId = DOCTOR_IDS[random.nextInt(DOCTOR_IDS.length)];
+                    String date = firstDay.plusDays(random.nextInt(DAYS)).toString();
+                    String time = randomTime(random);
+                    if (i % 4 == 3 && !booked.isEmpty()) {
+                        String appointmentId = booked.get(random.nextInt(booked.size()));
+                        if (manager.rescheduleAppointment(appointmentId, date, time)) {
+                            threadCounts[2]++;
+                        } else {
+                            threadCounts[1]++;
+                        }
+                    } else {
+                        Appointment appointment = new Appointment("T" + thread + "-" + i, "P001", "John Doe",
+                            doctorId, "Doctor", "General", date, time, TYPES[random.nextInt(TYPES.length)], "");
+                        if (manager.bookAppointment(appointment).isBooked()) {
+                            booked.add(appointment.getAppointmentId());
+                            threadCounts[0]++;
+                        } else {
+                            threadCounts[1]++;
+                        }
+                    }
+                }
+                return threadCounts;
+            }));
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        RunResult result = new RunResult();
+        for (Future<long[]> future : counts) {
+            long[] threadCounts = future.get();
+            result.booked += threadCounts[0];
+            result.conflicts += threadCounts[1];
+            result.rescheduled += threadCounts[2];
+        }
+        long elapsed = System.nanoTime() - startTime;
+        pool.shutdown();
+        
+        result.operationsPerSecond = (double) threads * operationsPerThread * 1_000_000_000L / elapsed;
+        result.failures = verify(manager, firstDay);
+        return result;
+    }
+    
+    /**
+     * Check that active appointments do not overlap and that the reserved
+     * minutes are exactly the minutes they cover
+     */
+    private static List<String> verify(AppointmentManager manager, LocalDate firstDay) {
+        List<String> failures = new ArrayList<>();
+        for (String doctorId : DOCTOR_IDS) {
+            for (int day = 0; day < DAYS; day++) {
+                LocalDate date = firstDay.plusDays(day);
+                int[] holders = new int[24 * 60];
+                for (Appointment appointment : manager.getAppointmentsByDoctor(doctorId)) {
+                    if (appointment.getStatus().isActive() && appointment.getLocalDate().equals(date)) {
+                        int startMinute = appointment.getLocalTime().getHour() * 60 +
+                            appointment.getLocalTime().getMinute();
+                        int endMinute = Math.min(holders.length, startMinute + appointment.getDurationMinutes());
+                        for (int minute = startMinute; minute < endMinute; minute++) {
+                            holders[minute]++;
+                        }
+                    }
+                }
+                for (int minute = 0; minute < holders.length; minute++) {
+                    if (holders[minute] > 1) {
+                        failures.add(doctorId + " " + date + " " + timeOf(minute) + ": " +
+                            holders[minute] + " appointments overlap");
+                        break;
+                    }
+                    boolean free = manager.isTimeSlotAvailable(doctorId, date.toString(), timeOf(minute), 1);
+                    if (free != (holders[minute] == 0)) {
+                        failures.add(doctorId + " " + date + " " + timeOf(minute) +
+                            (free ? ": booked minute reported free" : ": free minute still reserved"));
+                        break;
+                    }
+                }
+            }
+        }
+        return failures;
+    }
+    
+    private static String randomTime(Random random) {
+        return timeOf(FIRST_MINUTE + 5 * random.nextInt((LAST_MINUTE - FIRST_MINUTE) / 5));
+    }
+    
+    private static String timeOf(int minute) {
+        return LocalTime.of(minute / 60, minute % 60).toString();
+    }
+    
+    private static class RunResult {
+        private double operationsPerSecond;
+        private long booked;
+        private long conflicts;
+        private long rescheduled;
+        private List<String> failures;
+    }
+}
@@ -0,0 +1,443 @@
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Appointment Booking Engine Class
+ * Lock-free reservation of appointment time. Each doctor-day has a bitmap
+ * with one bit per minute of the day, and an active appointment holds the
+ * bits of every minute from its start time until its duration has passed,
+ * so an overlap check reads at most a few words however many appointments
+ * the doctor has. Booking sets the bits word by word with compare-and-set
+ * and backs out if any of them is taken: of several threads racing for
+ * overlapping time exactly one wins and the others get a definitive
+ * conflict, without taking any lock.
+ *
+ * Appointments stored without a booking check may overlap; the extra holders
+ * of a minute are counted so it only becomes free when the last of them
+ * leaves it. A slot listener is told whenever minutes turn reserved or free.
+ * Changes to one appointment's reservation are applied atomically, so
+ * concurrent changes of the same appointment never release its time twice.
+ */
+class AppointmentBookingEngine {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS_PER_DAY = (MINUTES_PER_DAY + 63) / 64;
+    
+    private Map<String, AtomicLongArray> slotsByDoctorDay;
+    private Map<String, ReservedSlot> reservations;
+    private Map<String, Map<Integer, Integer>> sharedHolders;
+    private volatile SlotListener slotListener;
+    
+    public AppointmentBookingEngine() {
+        this.slotsByDoctorDay = new ConcurrentHashMap<>();
+        this.reservations = new ConcurrentHashMap<>();
+        this.sharedHolders = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Atomically reserve the time of a new appointment. If an appointment
+     * with the same ID already holds time, that time is given up only once
+     * the new time is reserved.
+     * @param appointment Appointment to book
+     * @return BOOKED if the appointment now holds its time, CONFLICT if it overlaps another appointment
+     */
+    public BookingResult book(Appointment appointment) {
+        return book(appointment.getAppointmentId(), appointment);
+    }
+    
+    /**
+     * Atomically reserve the time of a new appointment under another key,
+     * e.g. before the appointment's ID is allocated; see transfer
+     * @param key Reservation key
+     * @param appointment Appointment to book
+     * @return BOOKED if the key now holds the appointment's time, CONFLICT if it overlaps another appointment
+     */
+    public BookingResult book(String key, Appointment appointment) {
+        if (!appointment.getStatus().isActive()) {
+            return BookingResult.BOOKED;
+        }
+        return reserve(key, new ReservedSlot(appointment.getDoctorId(),
+            appointment.getLocalDate(), appointment.getLocalTime(), appointment.getDurationMinutes()));
+    }
+    
+    /**
+     * Hand the time reserved under a key over to an appointment ID. Time the
+     * appointment ID held before is released, as when booking it again.
+     * @param key Reservation key used with book
+     * @param appointmentId Appointment ID that takes over the time
+     */
+    public void transfer(String key, String appointmentId) {
+        ReservedSlot slot = reservations.remove(key);
+        if (slot != null) {
+            reservations.compute(appointmentId, (id, held) -> {
+                if (held != null) {
+                    release(held, held.start, held.end);
+                }
+                return slot;
+            });
+        }
+    }
+    
+    /**
+     * Atomically move an appointment to a new date and time. The new time
+     * is reserved before the time the appointment held is released, so on a
+     * conflict the appointment keeps its old time.
+     * @param appointment Appointment to move; its date and time are not changed here
+     * @param date New date
+     * @param time New start time
+     * @return BOOKED if the appointment now holds the new time, CONFLICT if it overlaps another appointment
+     */
+    public BookingResult reschedule(Appointment appointment, LocalDate date, LocalTime time) {
+        return reserve(appointment.getAppointmentId(), new ReservedSlot(appointment.getDoctorId(),
+            date, time, appointment.getDurationMinutes()));
+    }
+    
+    /**
+     * Make an appointment hold the time of its current doctor, date, time,
+     * type and status, releasing the time it held before. The time is taken
+     * even if it overlaps, as for appointments stored without a booking check.
+     * @param appointment Appointment that was added or changed
+     */
+    public void update(Appointment appointment) {
+        boolean active = appointment.getStatus().isActive();
+        reservations.compute(appointment.getAppointmentId(), (appointmentId, held) -> {
+            ReservedSlot slot = active ? new ReservedSlot(appointment.getDoctorId(), appointment.getLocalDate(),
+                appointment.getLocalTime(), appointment.getDurationMinutes()) : null;
+            if (slot != null && slot.equals(held)) {
+                return held;
+            }
+            if (slot != null) {
+                occupy(slot);
+            }
+            if (held != null) {
+                release(held, held.start, held.end);
+            }
+            return slot;
+        });
+    }
+    
+    /**
+     * Release the time held by an appointment
+     * @param appointmentId Appointment ID
+     */
+    public void remove(String appointmentId) {
+        reservations.computeIfPresent(appointmentId, (key, held) -> {
+            release(held, held.start, held.end);
+            return null;
+        });
+    }
+    
+    /**
+     * Check whether an active appointment covers a point in time
+     * @param doctorId Doctor ID
+     * @param date Date
+     * @param time Time of day
+     * @return true if the doctor is booked at that time
+     */
+    public boolean isReserved(String doctorId, LocalDate date, LocalTime time) {
+        return isReserved(doctorId, date, minuteOfDay(time));
+    }
+    
+    /**
+     * Check whether an active appointment covers a minute
+     * @param doctorId Doctor ID
+     * @param date Date
+     * @param minute Minute of the day
+     * @return true if the doctor is booked during that minute
+     */
+    public boolean isReserved(String doctorId, LocalDate date, int minute) {
+        AtomicLongArray bits = slotsByDoctorDay.get(doctorDayKey(doctorId, date));
+        return bits != null && (bits.get(minute >>> 6) & (1L << minute)) != 0;
+    }
+    
+    /**
+     * Check whether a doctor is free for a whole period
+     * @param doctorId Doctor ID
+     * @param date Date
+     * @param time Start time
+     * @param durationMinutes Length of the period in minutes
+     * @return true if no active appointment overlaps the period
+     */
+    public boolean isFree(String doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+        return isFree(doctorId, date, minuteOfDay(time), durationMinutes);
+    }
+    
+    /**
+     * Check whether a doctor is free for a whole period
+     * @param doctorId Doctor ID
+     * @param date Date
+     * @param start Start minute of the day
+     * @param durationMinutes Length of the period in minutes
+     * @return true if no active appointment overlaps the period
+     */
+    public boolean isFree(String doctorId, LocalDate date, int start, int durationMinutes) {
+        return isFree(slotsByDoctorDay.get(doctorDayKey(doctorId, date)), start, durationMinutes);
+    }
+    
+    /**
+     * Check whether a period is free in a doctor-day bitmap
+     * @param bits Bitmap from getDaySlots, or null if nothing was ever reserved that day
+     * @param start Start minute of the day
+     * @param durationMinutes Length of the period in minutes
+     * @return true if none of the period's minutes is reserved
+     */
+    static boolean isFree(AtomicLongArray bits, int start, int durationMinutes) {
+        if (bits == null) {
+            return true;
+        }
+        int end = endMinute(start, durationMinutes);
+        for (int word = start >>> 6; word <= (end - 1) >>> 6; word++) {
+            if ((bits.get(word) & rangeMask(word, start, end)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Get the reservation bitmap of a doctor-day, one bit per minute of the day
+     * @param doctorId Doctor ID
+     * @param date Date
+     * @return Live bitmap, or null if nothing was ever reserved that day
+     */
+    AtomicLongArray getDaySlots(String doctorId, LocalDate date) {
+        return slotsByDoctorDay.get(doctorDayKey(doctorId, date));
+    }
+    
+    /**
+     * Set the listener told about minutes turning reserved or free
+     * @param slotListener Listener, or null for none
+     */
+    public void setSlotListener(SlotListener slotListener) {
+        this.slotListener = slotListener;
+    }
+    
+    /**
+     * Make an appointment hold a slot if all of its time is free, keeping
+     * the time it already holds otherwise. Applied under the appointment's
+     * reservation entry, so changes to one appointment never interleave.
+     */
+    private BookingResult reserve(String appointmentId, ReservedSlot slot) {
+        BookingResult[] result = {BookingResult.CONFLICT};
+        reservations.compute(appointmentId, (key, held) -> {
+            if (!tryMove(held, slot)) {
+                return held;
+            }
+            result[0] = BookingResult.BOOKED;
+            return slot;
+        });
+        return result[0];
+    }
+    
+    /**
+     * Reserve a slot in place of the slot held before, if any. Minutes the
+     * held slot already covers on the same doctor-day are kept rather than
+     * reserved again; the others are reserved first and the held minutes
+     * outside the new slot are released only once that succeeded.
+     */
+    private boolean tryMove(ReservedSlot held, ReservedSlot slot) {
+        if (held == null || !held.doctorDay.equals(slot.doctorDay) ||
+            held.end <= slot.start || slot.end <= held.start) {
+            if (!tryReserve(slot, slot.start, slot.end)) {
+                return false;
+            }
+            if (held != null) {
+                release(held, held.start, held.end);
+            }
+            return true;
+        }
+        if (slot.start < held.start && !tryReserve(slot, slot.start, held.start)) {
+            return false;
+        }
+        if (slot.end > held.end && !tryReserve(slot, held.end, slot.end)) {
+            if (slot.start < held.start) {
+                release(slot, slot.start, held.start);
+            }
+            return false;
+        }
+        if (held.start < slot.start) {
+            release(held, held.start, slot.start);
+        }
+        if (held.end > slot.end) {
+            release(held, slot.end, held.end);
+        }
+        return true;
+    }
+    
+    /**
+     * Set all bits of a slot's minutes in [start, end), or none of them if any is taken.
+     * Words are taken in ascending order; on a conflict the words taken so
+     * far are released like any other reservation, so a forced holder that
+     * counted itself on one of them in the meantime keeps the minute.
+     */
+    private boolean tryReserve(ReservedSlot slot, int start, int end) {
+        AtomicLongArray bits = bitsOf(slot);
+        int firstWord = start >>> 6;
+        int lastWord = (end - 1) >>> 6;
+        for (int word = firstWord; word <= lastWord; word++) {
+            long mask = rangeMask(word, start, end);
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    if (word > firstWord) {
+                        release(slot, start, word << 6);
+                    }
+                    return false;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+        notifyListener(slot, start, end);
+        return true;
+    }
+    
+    /**
+     * Take a slot's minutes even if they are held, counting extra holders.
+     * Counts change only while the minute's bit is set, and releases decide
+     * between clearing a bit and dropping a holder under the same doctor-day
+     * key, so a minute is never left free while an active appointment holds it.
+     */
+    private void occupy(ReservedSlot slot) {
+        if (tryReserve(slot, slot.start, slot.end)) {
+            return;
+        }
+        AtomicLongArray bits = bitsOf(slot);
+        sharedHolders.compute(slot.doctorDay, (key, counts) -> {
+            Map<Integer, Integer> holders = counts != null ? counts : new HashMap<>();
+            for (int minute = slot.start; minute < slot.end; minute++) {
+                int word = minute >>> 6;
+                long mask = 1L << minute;
+                while (true) {
+                    long current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        holders.merge(minute, 1, Integer::sum);
+                        break;
+                    }
+                    if (bits.compareAndSet(word, current, current | mask)) {
+                        break;
+                    }
+                }
+            }
+            return holders.isEmpty() ? null : holders;
+        });
+        notifyListener(slot, slot.start, slot.end);
+    }
+    
+    /**
+     * Give up a slot's minutes in [start, end), clearing those without extra holders
+     */
+    private void release(ReservedSlot slot, int start, int end) {
+        AtomicLongArray bits = bitsOf(slot);
+        sharedHolders.compute(slot.doctorDay, (key, holders) -> {
+            for (int word = start >>> 6; word <= (end - 1) >>> 6; word++) {
+                long mask = rangeMask(word, start, end);
+                if (holders != null) {
+                    for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                        int minute = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                        Integer count = holders.get(minute);
+                        if (count != null) {
+                            // Another holder keeps the minute reserved
+                            mask &= ~(1L << minute);
+                            if (count == 1) {
+                                holders.remove(minute);
+                            } else {
+                                holders.put(minute, count - 1);
+                            }
+                        }
+                    }
+                }
+                long current;
+                do {
+                    current = bits.get(word);
+                } while (!bits.compareAndSet(word, current, current & ~mask));
+            }
+            return holders == null || holders.isEmpty() ? null : holders;
+        });
+        notifyListener(slot, start, end);
+    }
+    
+    private AtomicLongArray bitsOf(ReservedSlot slot) {
+        AtomicLongArray bits = slotsByDoctorDay.get(slot.doctorDay);
+        if (bits == null) {
+            bits = slotsByDoctorDay.computeIfAbsent(slot.doctorDay, key -> new AtomicLongArray(WORDS_PER_DAY));
+        }
+        return bits;
+    }
+    
+    private void notifyListener(ReservedSlot slot, int fromMinute, int toMinute) {
+        SlotListener listener = slotListener;
+        if (listener != null) {
+            listener.slotChanged(slot.doctorId, slot.date, fromMinute, toMinute);
+        }
+    }
+    
+    private static String doctorDayKey(String doctorId, LocalDate date) {
+        return doctorId + ' ' + date;
+    }
+    
+    static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+    
+    /**
+     * End of a period in minutes of the day, cut off at midnight
+     */
+    private static int endMinute(int start, int durationMinutes) {
+        return Math.min(MINUTES_PER_DAY, start + Math.max(1, durationMinutes));
+    }
+    
+    /**
+     * Bits of the minutes in [start, end) that fall into one word
+     */
+    private static long rangeMask(int word, int start, int end) {
+        int from = Math.max(start - (word << 6), 0);
+        int to = Math.min(end - (word << 6), 64);
+        long upper = to == 64 ? -1L : (1L << to) - 1;
+        return upper & (-1L << from);
+    }
+    
+    /**
+     * Listener told when minutes of a doctor-day turn reserved or free.
+     * Notifications may arrive out of order, so listeners should re-read
+     * the state of the minutes they care about.
+     */
+    interface SlotListener {
+        void slotChanged(String doctorId, LocalDate date, int fromMinute, int toMinute);
+    }
+    
+    /**
+     * The minutes of a doctor-day an appointment holds, from its start time
+     * until its duration has passed
+     */
+    private static class ReservedSlot {
+        private final String doctorId;
+        private final LocalDate date;
+        private final String doctorDay;
+        private final int start;
+        private final int end;
+        
+        ReservedSlot(String doctorId, LocalDate date, LocalTime time, int durationMinutes) {
+            this.doctorId = doctorId;
+            this.date = date;
+            this.doctorDay = doctorDayKey(doctorId, date);
+            this.start = minuteOfDay(time);
+            this.end = endMinute(start, durationMinutes);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            ReservedSlot that = (ReservedSlot) obj;
+            return start == that.start && end == that.end && doctorDay.equals(that.doctorDay);
+        }
+        
+        @Override
+        public int hashCode() {
+            return (doctorDay.hashCode() * 31 + start) * 31 + end;
+        }
+    }
+}
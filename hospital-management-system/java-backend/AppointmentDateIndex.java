@@ -0,0 +1,194 @@
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Appointment Date Index Class
+ * Appointments ordered by date and, within a date, by time, so date-range
+ * queries are a tree lookup plus the matching appointments. Keys are the
+ * appointments' parsed dates and times, so nothing is parsed per appointment.
+ * The maps are concurrent so appointments can be indexed from several threads.
+ *
+ * The number of appointments on one date and after it is also kept as it
+ * changes, for the date last counted (normally today), so counting them
+ * takes two reads. Counting another date recounts once from the tree.
+ */
+class AppointmentDateIndex {
+    private NavigableMap<LocalDate, NavigableMap<IndexedEntry, Appointment>> appointmentsByDate;
+    private Map<String, IndexedEntry> indexedEntries;
+    private StampedLock countLock;
+    private volatile DayCounts dayCounts;
+    
+    public AppointmentDateIndex() {
+        this.appointmentsByDate = new ConcurrentSkipListMap<>();
+        this.indexedEntries = new ConcurrentHashMap<>();
+        this.countLock = new StampedLock();
+        this.dayCounts = new DayCounts(LocalDate.MIN, 0, 0);
+    }
+    
+    /**
+     * Index an appointment at its current date and time, moving it if it was indexed before
+     * @param appointment Appointment that was added or rescheduled
+     */
+    public void update(Appointment appointment) {
+        IndexedEntry entry = new IndexedEntry(appointment.getLocalDate(), appointment.getLocalTime(),
+            appointment.getAppointmentId());
+        // Changes hold the count lock shared, so recounting for a new date sees none half done
+        long stamp = countLock.readLock();
+        try {
+            removeEntry(appointment.getAppointmentId());
+            // A day map dropped by a concurrent remove fails compute's replace step, so the entry is re-added
+            appointmentsByDate.compute(entry.date, (date, day) -> {
+                NavigableMap<IndexedEntry, Appointment> entries = day != null ? day : new ConcurrentSkipListMap<>();
+                entries.put(entry, appointment);
+                return entries;
+            });
+            indexedEntries.put(appointment.getAppointmentId(), entry);
+            dayCounts.add(entry.date, 1);
+        } finally {
+            countLock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * Remove an appointment from the index
+     * @param appointmentId Appointment ID
+     */
+    public void remove(String appointmentId) {
+        long stamp = countLock.readLock();
+        try {
+            removeEntry(appointmentId);
+        } finally {
+            countLock.unlockRead(stamp);
+        }
+    }
+    
+    private void removeEntry(String appointmentId) {
+        IndexedEntry entry = indexedEntries.remove(appointmentId);
+        if (entry == null) {
+            return;
+        }
+        
+        appointmentsByDate.computeIfPresent(entry.date, (date, day) -> {
+            day.remove(entry);
+            return day.isEmpty() ? null : day;
+        });
+        dayCounts.add(entry.date, -1);
+    }
+    
+    /**
+     * Get appointments between two dates, ordered by date and time
+     * @param fromDate First date
+     * @param fromInclusive Whether appointments on the first date are included
+     * @param toDate Last date, or null for no upper bound
+     * @param toInclusive Whether appointments on the last date are included
+     * @return List of appointments in the range
+     */
+    public List<Appointment> between(LocalDate fromDate, boolean fromInclusive, LocalDate toDate, boolean toInclusive) {
+        NavigableMap<LocalDate, NavigableMap<IndexedEntry, Appointment>> range = toDate == null ?
+            appointmentsByDate.tailMap(fromDate, fromInclusive) :
+            appointmentsByDate.subMap(fromDate, fromInclusive, toDate, toInclusive);
+        
+        List<Appointment> result = new ArrayList<>();
+        for (NavigableMap<IndexedEntry, Appointment> day : range.values()) {
+            result.addAll(day.values());
+        }
+        return result;
+    }
+    
+    /**
+     * Count appointments on a date
+     * @param date Date
+     * @return Number of appointments on the date
+     */
+    public int count(LocalDate date) {
+        return countsFor(date).onDay.get();
+    }
+    
+    /**
+     * Count appointments after a date
+     * @param date Date
+     * @return Number of appointments on later dates
+     */
+    public int countAfter(LocalDate date) {
+        return countsFor(date).afterDay.get();
+    }
+    
+    private DayCounts countsFor(LocalDate date) {
+        DayCounts counts = dayCounts;
+        if (counts.day.equals(date)) {
+            return counts;
+        }
+        long stamp = countLock.writeLock();
+        try {
+            counts = dayCounts;
+            if (!counts.day.equals(date)) {
+                int onDay = 0;
+                int afterDay = 0;
+                for (Map.Entry<LocalDate, NavigableMap<IndexedEntry, Appointment>> day :
+                        appointmentsByDate.tailMap(date, true).entrySet()) {
+                    if (day.getKey().equals(date)) {
+                        onDay = day.getValue().size();
+                    } else {
+                        afterDay += day.getValue().size();
+                    }
+                }
+                counts = new DayCounts(date, onDay, afterDay);
+                dayCounts = counts;
+            }
+            return counts;
+        } finally {
+            countLock.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Number of appointments on one date and on later dates
+     */
+    private static class DayCounts {
+        private final LocalDate day;
+        private final AtomicInteger onDay;
+        private final AtomicInteger afterDay;
+        
+        DayCounts(LocalDate day, int onDay, int afterDay) {
+            this.day = day;
+            this.onDay = new AtomicInteger(onDay);
+            this.afterDay = new AtomicInteger(afterDay);
+        }
+        
+        void add(LocalDate date, int delta) {
+            int order = date.compareTo(day);
+            if (order == 0) {
+                onDay.addAndGet(delta);
+            } else if (order > 0) {
+                afterDay.addAndGet(delta);
+            }
+        }
+    }
+    
+    /**
+     * Where an appointment was indexed, so it can be moved after its fields changed.
+     * Entries of one date are ordered by time and then appointment ID.
+     */
+    private static class IndexedEntry implements Comparable<IndexedEntry> {
+        private final LocalDate date;
+        private final LocalTime time;
+        private final String appointmentId;
+        
+        IndexedEntry(LocalDate date, LocalTime time, String appointmentId) {
+            this.date = date;
+            this.time = time;
+            this.appointmentId = appointmentId;
+        }
+        
+        @Override
+        public int compareTo(IndexedEntry other) {
+            int result = time.compareTo(other.time);
+            return result != 0 ? result : appointmentId.compareTo(other.appointmentId);
+        }
+    }
+}
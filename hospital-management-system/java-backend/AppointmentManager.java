@@ -1,22 +1,80 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Appointment Manager Class
- * Handles all appointment-related operations and business logic
+ * Handles all appointment-related operations and business logic.
+ * New appointments may be booked from several threads at once; see bookAppointment.
+ * Occurrences of recurring series are created when a date-range query or an
+ * availability check first touches their date; listings by patient, by
+ * doctor, by status or of all appointments create every occurrence of the
+ * series they cover. With an archive opened,
+ * archivePastAppointments moves closed appointments older than the archive
+ * horizon out of the live map; see openArchive.
  */
 public class AppointmentManager {
+    private static final Comparator<Appointment> BY_DATE_AND_TIME = Comparator.comparing(Appointment::getLocalDate)
+        .thenComparing(Appointment::getLocalTime)
+        .thenComparing(Appointment::getAppointmentId);
+    
     private Map<String, Appointment> appointments;
     private Map<String, Doctor> doctors;
-    private int appointmentCounter;
+    private AtomicInteger appointmentCounter;
+    private AtomicInteger reservationCounter;
+    private Map<PageSortKey, PagedIndex<Appointment>> pageIndexes;
+    private AppointmentBookingEngine bookingEngine;
+    private AppointmentDateIndex dateIndex;
+    private AppointmentStatusCounts statusCounts;
+    private PatientAdjacencyIndex patientIndex;
+    private AvailabilityCalendar availabilityCalendar;
+    private Map<String, AppointmentSeries> series;
+    private volatile AppointmentSeries[] seriesSnapshot;
+    private Map<String, List<AppointmentSeries>> seriesByDoctor;
+    private Map<String, List<AppointmentSeries>> seriesByPatient;
+    private AtomicInteger seriesCounter;
+    private volatile AppointmentArchive archive;
+    private int archiveHorizonDays;
+    private ReadWriteLock historyLock;
+    private CopyOnWriteArrayList<Predicate<Appointment>> archiveHolds;
+    private Map<String, Integer> statistics;
     
     public AppointmentManager() {
-        this.appointments = new HashMap<>();
+        this.appointments = new ConcurrentHashMap<>();
         this.doctors = new HashMap<>();
-        this.appointmentCounter = 5; // Starting from A005
+        this.appointmentCounter = new AtomicInteger(5); // Starting from A005
+        this.reservationCounter = new AtomicInteger();
+        this.pageIndexes = new EnumMap<>(PageSortKey.class);
+        pageIndexes.put(PageSortKey.ID, new PagedIndex<>(PageSortKey.ID,
+            Appointment::getAppointmentId, Appointment::getAppointmentId, appointments::get));
+        pageIndexes.put(PageSortKey.DATE, new PagedIndex<>(PageSortKey.DATE, Appointment::getAppointmentId,
+            appointment -> appointment.getDate() + " " + appointment.getTime(), appointments::get));
+        this.bookingEngine = new AppointmentBookingEngine();
+        this.dateIndex = new AppointmentDateIndex();
+        this.statusCounts = new AppointmentStatusCounts();
+        this.patientIndex = new PatientAdjacencyIndex();
+        this.series = new ConcurrentHashMap<>();
+        this.seriesSnapshot = new AppointmentSeries[0];
+        this.seriesByDoctor = new ConcurrentHashMap<>();
+        this.seriesByPatient = new ConcurrentHashMap<>();
+        this.seriesCounter = new AtomicInteger(1);
+        this.archiveHolds = new CopyOnWriteArrayList<>();
+        this.historyLock = new ReentrantReadWriteLock();
+        this.statistics = new StatisticsView();
         initializeDoctors();
+        this.availabilityCalendar = new AvailabilityCalendar(doctors.values(), bookingEngine,
+            AvailabilityCalendar.DEFAULT_HORIZON_DAYS);
         initializeSampleAppointments();
     }
     
@@ -38,8 +96,8 @@ public class AppointmentManager {
      * Initialize sample appointment data
      */
     private void initializeSampleAppointments() {
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        String tomorrow = LocalDate.now().plusDays(1).format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        String today = HospitalClock.today().toString();
+        String tomorrow = HospitalClock.today().plusDays(1).toString();
         
         addAppointment(new Appointment("A001", "P001", "John Doe", "D001", "Dr. Smith", 
             "Cardiology", today, "09:00", "Consultation", "Regular checkup"));
@@ -52,23 +110,362 @@ public class AppointmentManager {
     }
     
     /**
-     * Add a new appointment
+     * Add a new appointment without checking that its slot is free
      * @param appointment Appointment to add
      */
     public void addAppointment(Appointment appointment) {
-        appointments.put(appointment.getAppointmentId(), appointment);
+        bookingEngine.update(appointment);
+        storeAppointment(appointment);
+    }
+    
+    /**
+     * Book a new appointment if its doctor's slot is free. The slot is
+     * reserved atomically, so concurrent bookings of the same slot never
+     * both succeed.
+     * @param appointment Appointment to book
+     * @return BOOKED if the appointment was added, CONFLICT if the slot is taken
+     */
+    public BookingResult bookAppointment(Appointment appointment) {
+        materializeSeries(appointment.getDoctorId(), appointment.getLocalDate(), appointment.getLocalDate());
+        BookingResult result = bookingEngine.book(appointment);
+        if (result.isBooked()) {
+            storeAppointment(appointment);
+        }
+        return result;
+    }
+    
+    /**
+     * Reserve the time of a new appointment and allocate its ID only once
+     * the time is held, without storing it yet; see addReservedAppointments
+     * @param factory Creates the appointment for a given ID
+     * @return Appointment with a new ID holding its time, or null if the time is taken
+     */
+    Appointment reserveNewAppointment(Function<String, Appointment> factory) {
+        // Appointment IDs never start with '#', so the key cannot clash with one
+        Appointment candidate = factory.apply("#" + reservationCounter.getAndIncrement());
+        materializeSeries(candidate.getDoctorId(), candidate.getLocalDate(), candidate.getLocalDate());
+        if (!bookingEngine.book(candidate.getAppointmentId(), candidate).isBooked()) {
+            return null;
+        }
+        Appointment appointment = factory.apply(generateAppointmentId());
+        bookingEngine.transfer(candidate.getAppointmentId(), appointment.getAppointmentId());
+        return appointment;
+    }
+    
+    /**
+     * Store a batch of appointments returned by reserveNewAppointment
+     * @param batch Appointments whose time is already reserved
+     */
+    void addReservedAppointments(List<Appointment> batch) {
+        for (Appointment appointment : batch) {
+            indexAppointment(appointment);
+        }
+        System.out.println("Appointments added: " + batch.size());
+    }
+    
+    private void storeAppointment(Appointment appointment) {
+        indexAppointment(appointment);
         System.out.println("Appointment added: " + appointment.getAppointmentId() + 
             " for " + appointment.getPatientName());
     }
     
+    private void indexAppointment(Appointment appointment) {
+        Appointment previous;
+        // Counted before it can be found, so status changes always see it counted. The
+        // date and page indexes are updated under the same lock as reschedules, which move them
+        synchronized (appointment) {
+            statusCounts.add(appointment.getStatus());
+            previous = appointments.put(appointment.getAppointmentId(), appointment);
+            for (PagedIndex<Appointment> pageIndex : pageIndexes.values()) {
+                pageIndex.put(appointment);
+            }
+            dateIndex.update(appointment);
+        }
+        if (previous != null) {
+            statusCounts.remove(previous.getStatus());
+            if (!previous.getPatientId().equals(appointment.getPatientId())) {
+                patientIndex.remove(previous.getPatientId(), previous.getAppointmentId());
+            }
+        }
+        patientIndex.add(appointment.getPatientId(), appointment.getAppointmentId());
+    }
+    
+    /**
+     * Open an archive for past appointments and archive what is due. After
+     * that, archival runs whenever archivePastAppointments is called, e.g.
+     * once a day by a scheduled job. Archived appointments are still
+     * returned by getAppointmentsByPatient and getAppointmentsByDoctor, but
+     * no longer by the other queries. New appointment and series IDs
+     * continue after the highest archived ones. Archive holds added before
+     * (see addArchiveHold) already apply to this first run.
+     * @param directory Archive directory
+     * @param horizonDays Number of past days kept live
+     * @throws IOException if the archive cannot be opened or written
+     */
+    public void openArchive(Path directory, int horizonDays) throws IOException {
+        if (horizonDays < 0) {
+            throw new IllegalArgumentException("Archive horizon must not be negative: " + horizonDays);
+        }
+        synchronized (this) {
+            this.archive = new AppointmentArchive(directory, this::reserveArchivedId);
+            this.archiveHorizonDays = horizonDays;
+        }
+        archivePastAppointments();
+    }
+    
+    /**
+     * Make sure generated appointment and series IDs never repeat an archived
+     * appointment's ID, so archived history is never mistaken for a new
+     * appointment. IDs in the generated forms (A followed by digits, or a
+     * series ID S followed by digits and the occurrence date) advance the
+     * counters past them.
+     */
+    private void reserveArchivedId(String appointmentId) {
+        if (appointmentId.matches("A\\d{1,9}")) {
+            appointmentCounter.accumulateAndGet(Integer.parseInt(appointmentId.substring(1)) + 1, Math::max);
+        } else if (appointmentId.matches("S\\d{1,9}-\\d{8}")) {
+            int next = Integer.parseInt(appointmentId.substring(1, appointmentId.indexOf('-'))) + 1;
+            seriesCounter.accumulateAndGet(next, Math::max);
+        }
+    }
+    
+    /**
+     * Move closed appointments older than the archive horizon to the archive.
+     * An appointment is taken out of the live map before it is written, so
+     * it is never both live and archived, and a status change can no longer
+     * reopen it once it is on its way to the archive. Patient and doctor
+     * histories wait only while a run moves appointments and writes its segment.
+     * @return Number of appointments archived
+     * @throws IOException if the archive segment cannot be written; the appointments stay live
+     */
+    public synchronized int archivePastAppointments() throws IOException {
+        if (archive == null) {
+            throw new IllegalStateException("No appointment archive opened");
+        }
+        LocalDate today = HospitalClock.today();
+        List<Appointment> due = new ArrayList<>();
+        // Histories read the live map and the archive under the read lock, so
+        // they never see an appointment both live and archived or neither
+        historyLock.writeLock().lock();
+        try {
+            for (Appointment appointment : dateIndex.between(LocalDate.MIN, true,
+                    today.minusDays(archiveHorizonDays), false)) {
+                synchronized (appointment) {
+                    if (isArchivable(appointment.getStatus()) && !isHeld(appointment) &&
+                        appointments.remove(appointment.getAppointmentId(), appointment)) {
+                        statusCounts.remove(appointment.getStatus());
+                        due.add(appointment);
+                    }
+                }
+            }
+            
+            try {
+                archive.append(due);
+            } catch (IOException e) {
+                for (Appointment appointment : due) {
+                    synchronized (appointment) {
+                        statusCounts.add(appointment.getStatus());
+                        appointments.put(appointment.getAppointmentId(), appointment);
+                    }
+                }
+                throw e;
+            }
+        } finally {
+            historyLock.writeLock().unlock();
+        }
+        
+        for (Appointment appointment : due) {
+            for (PagedIndex<Appointment> pageIndex : pageIndexes.values()) {
+                pageIndex.remove(appointment.getAppointmentId());
+            }
+            dateIndex.remove(appointment.getAppointmentId());
+            patientIndex.remove(appointment.getPatientId(), appointment.getAppointmentId());
+            bookingEngine.remove(appointment.getAppointmentId());
+        }
+        if (!due.isEmpty()) {
+            System.out.println("Archived " + due.size() + " past appointments");
+        }
+        return due.size();
+    }
+    
+    /**
+     * Keep closed appointments live while a condition holds, e.g. until they
+     * are billed. Archival skips every appointment that any hold matches.
+     * Adding a hold equal to one already registered has no effect.
+     * @param hold Condition under which an appointment must stay live
+     */
+    public void addArchiveHold(Predicate<Appointment> hold) {
+        archiveHolds.addIfAbsent(hold);
+    }
+    
+    /**
+     * Stop keeping appointments live for a hold added earlier
+     * @param hold Hold to remove
+     * @return true if the hold was registered
+     */
+    public boolean removeArchiveHold(Predicate<Appointment> hold) {
+        return archiveHolds.remove(hold);
+    }
+    
+    private boolean isHeld(Appointment appointment) {
+        for (Predicate<Appointment> hold : archiveHolds) {
+            if (hold.test(appointment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isArchivable(AppointmentStatus status) {
+        return status.isCompleted() || status.isCancelled();
+    }
+    
+    /**
+     * Add a recurring appointment series. Like addAppointment, its
+     * occurrences are not checked against existing appointments.
+     * @param appointmentSeries Series to add
+     */
+    public void addSeries(AppointmentSeries appointmentSeries) {
+        synchronized (series) {
+            series.put(appointmentSeries.getSeriesId(), appointmentSeries);
+            seriesSnapshot = series.values().toArray(new AppointmentSeries[0]);
+        }
+        seriesByDoctor.computeIfAbsent(appointmentSeries.getDoctorId(), key -> new CopyOnWriteArrayList<>())
+            .add(appointmentSeries);
+        seriesByPatient.computeIfAbsent(appointmentSeries.getPatientId(), key -> new CopyOnWriteArrayList<>())
+            .add(appointmentSeries);
+        System.out.println("Appointment series added: " + appointmentSeries.getSeriesId() + 
+            " for " + appointmentSeries.getPatientName());
+    }
+    
+    /**
+     * Get a recurring appointment series
+     * @param seriesId Series ID
+     * @return Series or null
+     */
+    public AppointmentSeries getSeries(String seriesId) {
+        return series.get(seriesId);
+    }
+    
+    /**
+     * Get all recurring appointment series
+     * @return List of all series
+     */
+    public List<AppointmentSeries> getAllSeries() {
+        return new ArrayList<>(series.values());
+    }
+    
+    /**
+     * Get the occurrence of a series on a date, creating it if needed
+     * @param seriesId Series ID
+     * @param date Date of the occurrence in yyyy-MM-dd format
+     * @return Occurrence, or null if the series has no occurrence on the date
+     */
+    public Appointment getOccurrence(String seriesId, String date) {
+        AppointmentSeries appointmentSeries = series.get(seriesId);
+        LocalDate day = Appointment.parseDate(date);
+        if (appointmentSeries == null || !appointmentSeries.occursOn(day)) {
+            return null;
+        }
+        appointmentSeries.materialize(day, day, this::occupyOccurrence);
+        return appointments.get(appointmentSeries.getOccurrenceId(day));
+    }
+    
+    /**
+     * Cancel a single occurrence of a series
+     * @param seriesId Series ID
+     * @param date Date of the occurrence in yyyy-MM-dd format
+     * @return true if successful
+     */
+    public boolean cancelOccurrence(String seriesId, String date) {
+        Appointment occurrence = getOccurrence(seriesId, date);
+        return occurrence != null && cancelAppointment(occurrence.getAppointmentId());
+    }
+    
+    /**
+     * Reschedule a single occurrence of a series
+     * @param seriesId Series ID
+     * @param date Date of the occurrence in yyyy-MM-dd format
+     * @param newDate New date
+     * @param newTime New time
+     * @return true if successful
+     */
+    public boolean rescheduleOccurrence(String seriesId, String date, String newDate, String newTime) {
+        Appointment occurrence = getOccurrence(seriesId, date);
+        return occurrence != null && rescheduleAppointment(occurrence.getAppointmentId(), newDate, newTime);
+    }
+    
+    /**
+     * Generate new series ID
+     * @return New series ID
+     */
+    public String generateSeriesId() {
+        return String.format("S%03d", seriesCounter.getAndIncrement());
+    }
+    
+    private void occupyOccurrence(Appointment occurrence) {
+        bookingEngine.update(occurrence);
+        indexAppointment(occurrence);
+    }
+    
+    /**
+     * Create the series occurrences of all doctors in a date range
+     */
+    private void materializeSeries(LocalDate from, LocalDate to) {
+        for (AppointmentSeries appointmentSeries : series.values()) {
+            appointmentSeries.materialize(from, to, this::occupyOccurrence);
+        }
+    }
+    
+    /**
+     * Create the series occurrences of one doctor in a date range
+     */
+    private void materializeSeries(String doctorId, LocalDate from, LocalDate to) {
+        List<AppointmentSeries> doctorSeries = seriesByDoctor.get(doctorId);
+        if (doctorSeries != null) {
+            for (AppointmentSeries appointmentSeries : doctorSeries) {
+                appointmentSeries.materialize(from, to, this::occupyOccurrence);
+            }
+        }
+    }
+    
+    /**
+     * Create every occurrence of the given series, from start to end date
+     */
+    private void materializeSeries(Collection<AppointmentSeries> seriesToCreate) {
+        if (seriesToCreate != null) {
+            for (AppointmentSeries appointmentSeries : seriesToCreate) {
+                appointmentSeries.materialize(appointmentSeries.getStartDate(), appointmentSeries.getEndDate(),
+                    this::occupyOccurrence);
+            }
+        }
+    }
+    
     /**
-     * Get all appointments
+     * Get all appointments, including every occurrence of every series
      * @return List of all appointments
      */
     public List<Appointment> getAllAppointments() {
+        materializeSeries(series.values());
         return new ArrayList<>(appointments.values());
     }
     
+    /**
+     * Get one page of appointments
+     * @param sortKey Order to list appointments in
+     * @param pageSize Maximum number of appointments on the page
+     * @param continuationToken Token from the previous page, or null for the first page
+     * @return Page of appointments with the token for the next page
+     */
+    public Page<Appointment> getAppointmentsPage(PageSortKey sortKey, int pageSize, String continuationToken) {
+        PagedIndex<Appointment> index = pageIndexes.get(sortKey);
+        if (index == null) {
+            throw new IllegalArgumentException("Unsupported sort key for appointments: " + sortKey);
+        }
+        materializeSeries(series.values());
+        return index.page(pageSize, continuationToken);
+    }
+    
     /**
      * Get all doctors
      * @return List of all doctors
@@ -95,13 +492,27 @@ public class AppointmentManager {
     public boolean updateAppointmentStatus(String appointmentId, AppointmentStatus status) {
         Appointment appointment = appointments.get(appointmentId);
         if (appointment != null) {
-            appointment.setStatus(status);
+            synchronized (appointment) {
+                // Archived since it was looked up
+                if (appointments.get(appointmentId) != appointment) {
+                    return false;
+                }
+                changeStatus(appointment, status);
+                bookingEngine.update(appointment);
+            }
             System.out.println("Appointment " + appointmentId + " status updated to " + status);
             return true;
         }
         return false;
     }
     
+    private void changeStatus(Appointment appointment, AppointmentStatus status) {
+        synchronized (appointment) {
+            statusCounts.move(appointment.getStatus(), status);
+            appointment.setStatus(status);
+        }
+    }
+    
     /**
      * Cancel appointment
      * @param appointmentId Appointment ID
@@ -116,36 +527,93 @@ public class AppointmentManager {
      * @param appointmentId Appointment ID
      * @param newDate New date
      * @param newTime New time
-     * @return true if successful
+     * @return true if successful, false if there is no such appointment or the new time is taken
+     * @throws IllegalArgumentException if the new date or time is invalid; the appointment is left unchanged
      */
     public boolean rescheduleAppointment(String appointmentId, String newDate, String newTime) {
+        LocalDate date = Appointment.parseDate(newDate);
+        LocalTime time = Appointment.parseTime(newTime);
         Appointment appointment = appointments.get(appointmentId);
-        if (appointment != null) {
-            appointment.setDate(newDate);
-            appointment.setTime(newTime);
-            appointment.setStatus(AppointmentStatus.RESCHEDULED);
-            return true;
+        if (appointment == null) {
+            return false;
         }
-        return false;
+        materializeSeries(appointment.getDoctorId(), date, date);
+        synchronized (appointment) {
+            // The new time is reserved before the old time is released, like a new booking
+            if (appointments.get(appointmentId) != appointment ||
+                !bookingEngine.reschedule(appointment, date, time).isBooked()) {
+                return false;
+            }
+            appointment.setDate(date);
+            appointment.setTime(time);
+            changeStatus(appointment, AppointmentStatus.RESCHEDULED);
+            // Index moves are not atomic per ID, so they stay under the lock that orders reschedules
+            pageIndexes.get(PageSortKey.DATE).put(appointment);
+            dateIndex.update(appointment);
+        }
+        return true;
     }
     
     /**
-     * Get appointments by patient ID
+     * Get appointments by patient ID, including every occurrence of the
+     * patient's series and, with an archive opened, archived appointments
      * @param patientId Patient ID
-     * @return List of appointments for the patient
+     * @return List of appointments for the patient, ordered by date and time
      */
     public List<Appointment> getAppointmentsByPatient(String patientId) {
-        return appointments.values().stream()
-                .filter(appointment -> appointment.getPatientId().equals(patientId))
-                .collect(Collectors.toList());
+        materializeSeries(seriesByPatient.get(patientId));
+        List<Appointment> result;
+        if (archive == null) {
+            result = getLiveAppointmentsByPatient(patientId);
+        } else {
+            historyLock.readLock().lock();
+            try {
+                result = getLiveAppointmentsByPatient(patientId);
+                result.addAll(archive.getByPatient(patientId));
+            } finally {
+                historyLock.readLock().unlock();
+            }
+        }
+        result.sort(BY_DATE_AND_TIME);
+        return result;
+    }
+    
+    private List<Appointment> getLiveAppointmentsByPatient(String patientId) {
+        List<Appointment> result = new ArrayList<>();
+        for (String appointmentId : patientIndex.get(patientId)) {
+            Appointment appointment = appointments.get(appointmentId);
+            if (appointment != null) {
+                result.add(appointment);
+            }
+        }
+        return result;
     }
     
     /**
-     * Get appointments by doctor ID
+     * Get appointments by doctor ID, including every occurrence of the
+     * doctor's series and, with an archive opened, archived appointments
      * @param doctorId Doctor ID
-     * @return List of appointments for the doctor
+     * @return List of appointments for the doctor, ordered by date and time
      */
     public List<Appointment> getAppointmentsByDoctor(String doctorId) {
+        materializeSeries(seriesByDoctor.get(doctorId));
+        List<Appointment> result;
+        if (archive == null) {
+            result = getLiveAppointmentsByDoctor(doctorId);
+        } else {
+            historyLock.readLock().lock();
+            try {
+                result = getLiveAppointmentsByDoctor(doctorId);
+                result.addAll(archive.getByDoctor(doctorId));
+            } finally {
+                historyLock.readLock().unlock();
+            }
+        }
+        result.sort(BY_DATE_AND_TIME);
+        return result;
+    }
+    
+    private List<Appointment> getLiveAppointmentsByDoctor(String doctorId) {
         return appointments.values().stream()
                 .filter(appointment -> appointment.getDoctorId().equals(doctorId))
                 .collect(Collectors.toList());
@@ -157,9 +625,25 @@ public class AppointmentManager {
      * @return List of appointments for the date
      */
     public List<Appointment> getAppointmentsByDate(String date) {
-        return appointments.values().stream()
-                .filter(appointment -> appointment.getDate().equals(date))
-                .collect(Collectors.toList());
+        LocalDate day = Appointment.parseDate(date);
+        materializeSeries(day, day);
+        return dateIndex.between(day, true, day, true);
+    }
+    
+    /**
+     * Get appointments in a date range, ordered by date and time
+     * @param fromDate First date in yyyy-MM-dd format, inclusive
+     * @param toDate Last date in yyyy-MM-dd format, inclusive
+     * @return List of appointments in the range
+     */
+    public List<Appointment> getAppointmentsBetween(String fromDate, String toDate) {
+        LocalDate from = Appointment.parseDate(fromDate);
+        LocalDate to = Appointment.parseDate(toDate);
+        if (from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        materializeSeries(from, to);
+        return dateIndex.between(from, true, to, true);
     }
     
     /**
@@ -167,96 +651,220 @@ public class AppointmentManager {
      * @return List of today's appointments
      */
     public List<Appointment> getTodaysAppointments() {
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        return getAppointmentsByDate(today);
+        LocalDate today = HospitalClock.today();
+        materializeSeries(today, today);
+        return dateIndex.between(today, true, today, true);
     }
     
     /**
-     * Get today's appointment count
+     * Get today's appointment count. Series occurrences that do not exist
+     * yet are counted from their series' rule, not created.
      * @return Number of appointments today
      */
     public int getTodaysAppointmentCount() {
-        return getTodaysAppointments().size();
+        LocalDate today = HospitalClock.today();
+        int count = dateIndex.count(today);
+        for (AppointmentSeries appointmentSeries : seriesSnapshot) {
+            count += appointmentSeries.countPendingOn(today);
+        }
+        return count;
     }
     
     /**
-     * Get upcoming appointments
-     * @return List of upcoming appointments
+     * Get upcoming appointments. Series occurrences are created up to the
+     * end date of their series.
+     * @return List of appointments after today, ordered by date and time
      */
     public List<Appointment> getUpcomingAppointments() {
-        return appointments.values().stream()
-                .filter(Appointment::isUpcoming)
-                .sorted((a1, a2) -> a1.getDate().compareTo(a2.getDate()))
-                .collect(Collectors.toList());
+        LocalDate today = HospitalClock.today();
+        for (AppointmentSeries appointmentSeries : series.values()) {
+            appointmentSeries.materialize(today.plusDays(1), appointmentSeries.getEndDate(), this::occupyOccurrence);
+        }
+        return dateIndex.between(today, false, null, false);
     }
     
     /**
-     * Get appointments by status
+     * Get upcoming appointments within a number of days
+     * @param days Number of days after today to include
+     * @return List of appointments in the next days, ordered by date and time
+     */
+    public List<Appointment> getUpcomingAppointments(int days) {
+        LocalDate today = HospitalClock.today();
+        materializeSeries(today.plusDays(1), today.plusDays(days));
+        return dateIndex.between(today, false, today.plusDays(days), true);
+    }
+    
+    /**
+     * Get appointments by status, including every occurrence of every series
      * @param status Appointment status
      * @return List of appointments with the status
      */
     public List<Appointment> getAppointmentsByStatus(AppointmentStatus status) {
+        materializeSeries(series.values());
         return appointments.values().stream()
                 .filter(appointment -> appointment.getStatus() == status)
                 .collect(Collectors.toList());
     }
     
     /**
-     * Check if time slot is available
+     * Check if a doctor is free for an appointment of the default length
      * @param doctorId Doctor ID
      * @param date Date
-     * @param time Time
-     * @return true if available
+     * @param time Start time
+     * @return true if no active appointment of the doctor overlaps the period
      */
     public boolean isTimeSlotAvailable(String doctorId, String date, String time) {
-        return appointments.values().stream()
-                .noneMatch(appointment -> 
-                    appointment.getDoctorId().equals(doctorId) &&
-                    appointment.getDate().equals(date) &&
-                    appointment.getTime().equals(time) &&
-                    appointment.getStatus().isActive());
+        return isTimeSlotAvailable(doctorId, date, time, Appointment.DEFAULT_DURATION_MINUTES);
     }
     
     /**
-     * Get available time slots for a doctor on a date
+     * Check if a doctor is free for an appointment of a given type
+     * @param doctorId Doctor ID
+     * @param date Date
+     * @param time Start time
+     * @param type Appointment type, which sets the appointment length
+     * @return true if no active appointment of the doctor overlaps the period
+     */
+    public boolean isTimeSlotAvailable(String doctorId, String date, String time, String type) {
+        return isTimeSlotAvailable(doctorId, date, time, Appointment.getDurationMinutes(type));
+    }
+    
+    /**
+     * Check if a doctor is free for an appointment of a given length
+     * @param doctorId Doctor ID
+     * @param date Date
+     * @param time Start time
+     * @param durationMinutes Appointment length in minutes
+     * @return true if no active appointment of the doctor overlaps the period
+     */
+    public boolean isTimeSlotAvailable(String doctorId, String date, String time, int durationMinutes) {
+        LocalDate day = Appointment.parseDate(date);
+        materializeSeries(doctorId, day, day);
+        return bookingEngine.isFree(doctorId, day, Appointment.parseTime(time), durationMinutes);
+    }
+    
+    /**
+     * Get the time slots of a doctor on a date that are free for an
+     * appointment of the default length
      * @param doctorId Doctor ID
      * @param date Date
      * @return List of available time slots
      */
     public List<String> getAvailableTimeSlots(String doctorId, String date) {
+        return getAvailableTimeSlots(doctorId, date, Appointment.DEFAULT_DURATION_MINUTES);
+    }
+    
+    /**
+     * Get the time slots of a doctor on a date that are free for an
+     * appointment of a given type
+     * @param doctorId Doctor ID
+     * @param date Date
+     * @param type Appointment type, which sets the appointment length
+     * @return List of available time slots
+     */
+    public List<String> getAvailableTimeSlots(String doctorId, String date, String type) {
+        return getAvailableTimeSlots(doctorId, date, Appointment.getDurationMinutes(type));
+    }
+    
+    private List<String> getAvailableTimeSlots(String doctorId, String date, int durationMinutes) {
         Doctor doctor = doctors.get(doctorId);
         if (doctor == null) {
             return new ArrayList<>();
         }
         
+        LocalDate day = Appointment.parseDate(date);
+        materializeSeries(doctorId, day, day);
         return doctor.getAvailableSlots().stream()
-                .filter(time -> isTimeSlotAvailable(doctorId, date, time))
+                .filter(time -> bookingEngine.isFree(doctorId, day, Appointment.parseTime(time), durationMinutes))
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Find the earliest free slots of a department's doctors from now on
+     * @param department Department name (case-insensitive)
+     * @param count Maximum number of slots to return
+     * @return Free slots ordered by date and time
+     */
+    public List<AvailableSlot> findEarliestAvailableSlots(String department, int count) {
+        return findEarliestAvailableSlots(department, HospitalClock.now(), count);
+    }
+    
+    /**
+     * Find the earliest slots of a department's doctors free for an
+     * appointment of the default length, looking up to
+     * AvailabilityCalendar.DEFAULT_HORIZON_DAYS days ahead
+     * @param department Department name (case-insensitive)
+     * @param after Earliest start time to consider
+     * @param count Maximum number of slots to return
+     * @return Free slots ordered by date and time
+     */
+    public List<AvailableSlot> findEarliestAvailableSlots(String department, LocalDateTime after, int count) {
+        return findEarliestAvailableSlots(department, after, count, Appointment.DEFAULT_DURATION_MINUTES);
+    }
+    
+    /**
+     * Find the earliest slots of a department's doctors free for an
+     * appointment of the given length, looking up to
+     * AvailabilityCalendar.DEFAULT_HORIZON_DAYS days ahead
+     * @param department Department name (case-insensitive)
+     * @param after Earliest start time to consider
+     * @param count Maximum number of slots to return
+     * @param durationMinutes Appointment length in minutes
+     * @return Free slots ordered by date and time
+     */
+    public List<AvailableSlot> findEarliestAvailableSlots(String department, LocalDateTime after, int count,
+                                                          int durationMinutes) {
+        LocalDate today = HospitalClock.today();
+        LocalDate firstDay = after.toLocalDate().isAfter(today) ? after.toLocalDate() : today;
+        LocalDate lastDay = today.plusDays(AvailabilityCalendar.DEFAULT_HORIZON_DAYS - 1);
+        for (AppointmentSeries appointmentSeries : series.values()) {
+            if (appointmentSeries.getDepartment().equalsIgnoreCase(department.trim())) {
+                appointmentSeries.materialize(firstDay, lastDay, this::occupyOccurrence);
+            }
+        }
+        return availabilityCalendar.findEarliest(department, after, count, durationMinutes);
+    }
+    
     /**
      * Generate new appointment ID
      * @return New appointment ID
      */
     public String generateAppointmentId() {
-        return String.format("A%03d", appointmentCounter++);
+        return String.format("A%03d", appointmentCounter.getAndIncrement());
     }
     
     /**
-     * Get appointment statistics
+     * Get the number of appointments with a status, without scanning them
+     * @param status Appointment status
+     * @return Number of stored appointments with the status
+     */
+    public int getAppointmentCount(AppointmentStatus status) {
+        return statusCounts.getCount(status);
+    }
+    
+    /**
+     * Get the number of appointments after today. Series occurrences that
+     * do not exist yet are counted from their series' rule, not created.
+     * @return Number of upcoming appointments
+     */
+    public int getUpcomingAppointmentCount() {
+        LocalDate today = HospitalClock.today();
+        int count = dateIndex.countAfter(today);
+        for (AppointmentSeries appointmentSeries : seriesSnapshot) {
+            count += appointmentSeries.countPendingAfter(today);
+        }
+        return count;
+    }
+    
+    /**
+     * Get appointment statistics: the count of every status, today's and
+     * upcoming appointments. The map is a read-only view created once;
+     * each value is read from the maintained counters when it is accessed,
+     * so a call allocates and computes nothing.
      * @return Map of statistics
      */
     public Map<String, Integer> getAppointmentStatistics() {
-        Map<String, Integer> stats = new HashMap<>();
-        
-        for (AppointmentStatus status : AppointmentStatus.values()) {
-            stats.put(status.getDisplayName(), getAppointmentsByStatus(status).size());
-        }
-        
-        stats.put("Today's Appointments", getTodaysAppointmentCount());
-        stats.put("Upcoming Appointments", getUpcomingAppointments().size());
-        
-        return stats;
+        return statistics;
     }
     
     /**
@@ -270,4 +878,85 @@ public class AppointmentManager {
             System.out.println(entry.getKey() + ": " + entry.getValue());
         }
     }
+    
+    /**
+     * Live, read-only map of the appointment statistics, in status order
+     * followed by today's and upcoming appointments
+     */
+    private class StatisticsView extends AbstractMap<String, Integer> {
+        private final AppointmentStatus[] statuses = AppointmentStatus.values();
+        private final String[] keys;
+        
+        StatisticsView() {
+            keys = new String[statuses.length + 2];
+            for (int i = 0; i < statuses.length; i++) {
+                keys[i] = statuses[i].getDisplayName();
+            }
+            keys[statuses.length] = "Today's Appointments";
+            keys[statuses.length + 1] = "Upcoming Appointments";
+        }
+        
+        private int valueAt(int index) {
+            if (index < statuses.length) {
+                return statusCounts.getCount(statuses[index]);
+            }
+            return index == statuses.length ? getTodaysAppointmentCount() : getUpcomingAppointmentCount();
+        }
+        
+        private int indexOf(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        @Override
+        public Integer get(Object key) {
+            int index = indexOf(key);
+            return index < 0 ? null : valueAt(index);
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+        
+        @Override
+        public int size() {
+            return keys.length;
+        }
+        
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    return new Iterator<Map.Entry<String, Integer>>() {
+                        private int next;
+                        
+                        @Override
+                        public boolean hasNext() {
+                            return next < keys.length;
+                        }
+                        
+                        @Override
+                        public Map.Entry<String, Integer> next() {
+                            if (next >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int index = next++;
+                            return new AbstractMap.SimpleImmutableEntry<>(keys[index], valueAt(index));
+                        }
+                    };
+                }
+                
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,180 @@
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Appointment Scheduler Class
+ * Places a whole queue of appointment requests on free doctor slots in one
+ * run. Each request names a department, a window in which the appointment
+ * should start and end, and an appointment type, whose duration is honoured
+ * by the booking engine.
+ *
+ * Within a department, requests are handled in order of the end of their
+ * window (earliest deadline first) and each one takes the earliest free slot
+ * of any of the department's doctors that fits its window, which places as
+ * many requests as possible and packs the doctors' days from the front.
+ * Departments have disjoint doctors, so they are scheduled in parallel.
+ */
+public class AppointmentScheduler {
+    private static final int CANDIDATES_PER_LOOKUP = 8;
+    
+    private AppointmentManager appointmentManager;
+    
+    public AppointmentScheduler(AppointmentManager appointmentManager) {
+        this.appointmentManager = appointmentManager;
+    }
+    
+    /**
+     * Book appointments for a queue of requests
+     * @param requests Requests to place
+     * @return Result with the appointment booked for each request, in request order
+     */
+    public SchedulingResult schedule(List<AppointmentRequest> requests) {
+        long startTime = System.nanoTime();
+        Appointment[] booked = new Appointment[requests.size()];
+        
+        Map<String, List<Integer>> byDepartment = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            byDepartment.computeIfAbsent(requests.get(i).getDepartment().trim().toLowerCase(),
+                key -> new ArrayList<>()).add(i);
+        }
+        
+        byDepartment.values().parallelStream().forEach(positions -> {
+            positions.sort(Comparator.comparing((Integer i) -> requests.get(i).getLatest())
+                .thenComparing(i -> requests.get(i).getEarliest())
+                .thenComparing(i -> i));
+            for (int position : positions) {
+                booked[position] = place(requests.get(position));
+            }
+        });
+        
+        // The engine already holds the booked time; store all appointments at once
+        List<Appointment> placed = new ArrayList<>(booked.length);
+        for (Appointment appointment : booked) {
+            if (appointment != null) {
+                placed.add(appointment);
+            }
+        }
+        appointmentManager.addReservedAppointments(placed);
+        return new SchedulingResult(Arrays.asList(booked), System.nanoTime() - startTime);
+    }
+    
+    /**
+     * Reserve the earliest free slot that fits a request's window
+     * @return Appointment holding the slot, not yet stored, or null if no slot fits
+     */
+    private Appointment place(AppointmentRequest request) {
+        LocalDateTime now = HospitalClock.now();
+        LocalDateTime after = request.getEarliest().isAfter(now) ? request.getEarliest() : now;
+        
+        while (true) {
+            List<AvailableSlot> slots = appointmentManager.findEarliestAvailableSlots(
+                request.getDepartment(), after, CANDIDATES_PER_LOOKUP, request.getDurationMinutes());
+            for (AvailableSlot slot : slots) {
+                LocalDateTime start = slot.getDate().atTime(slot.getTime());
+                if (start.plusMinutes(request.getDurationMinutes()).isAfter(request.getLatest())) {
+                    return null;
+                }
+                // Another booking can still take the slot first; the ID is allocated only on success
+                Appointment appointment = appointmentManager.reserveNewAppointment(appointmentId ->
+                    new Appointment(appointmentId, request.getPatientId(), request.getPatientName(),
+                        slot.getDoctorId(), slot.getDoctorName(), slot.getDepartment(), slot.getDate().toString(),
+                        slot.getTime().toString(), request.getType(), request.getNotes()));
+                if (appointment != null) {
+                    return appointment;
+                }
+            }
+            if (slots.size() < CANDIDATES_PER_LOOKUP) {
+                return null;
+            }
+            AvailableSlot last = slots.get(slots.size() - 1);
+            after = last.getDate().atTime(last.getTime()).plusMinutes(1);
+        }
+    }
+}
+
+/**
+ * Appointment Request Class
+ * A patient's request for an appointment in a department, to be placed by the scheduler
+ */
+class AppointmentRequest {
+    private String patientId;
+    private String patientName;
+    private String department;
+    private LocalDateTime earliest;
+    private LocalDateTime latest;
+    private String type;
+    private String notes;
+    
+    public AppointmentRequest(String patientId, String patientName, String department,
+                              LocalDateTime earliest, LocalDateTime latest, String type, String notes) {
+        if (latest.isBefore(earliest)) {
+            throw new IllegalArgumentException("Window ends before it starts: " + earliest + " - " + latest);
+        }
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.department = department;
+        this.earliest = earliest;
+        this.latest = latest;
+        this.type = type;
+        this.notes = notes;
+    }
+    
+    // Getters
+    public String getPatientId() { return patientId; }
+    public String getPatientName() { return patientName; }
+    public String getDepartment() { return department; }
+    public LocalDateTime getEarliest() { return earliest; }
+    public LocalDateTime getLatest() { return latest; }
+    public String getType() { return type; }
+    public String getNotes() { return notes; }
+    
+    /**
+     * Get the duration of the requested appointment type
+     * @return duration in minutes
+     */
+    public int getDurationMinutes() {
+        return Appointment.getDurationMinutes(type);
+    }
+    
+    @Override
+    public String toString() {
+        return "AppointmentRequest{" +
+                "patientId='" + patientId + '\'' +
+                ", department='" + department + '\'' +
+                ", earliest=" + earliest +
+                ", latest=" + latest +
+                ", type='" + type + '\'' +
+                '}';
+    }
+}
+
+/**
+ * Scheduling Result Class
+ */
+class SchedulingResult {
+    private List<Appointment> appointments;
+    private int scheduled;
+    private long elapsedNanos;
+    
+    public SchedulingResult(List<Appointment> appointments, long elapsedNanos) {
+        this.appointments = appointments;
+        this.scheduled = (int) appointments.stream().filter(Objects::nonNull).count();
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    // Getters
+    public List<Appointment> getAppointments() { return appointments; }
+    public int getScheduled() { return scheduled; }
+    public int getUnscheduled() { return appointments.size() - scheduled; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    public double getRequestsPerSecond() {
+        return elapsedNanos == 0 ? 0 : appointments.size() * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Scheduled %d requests, unscheduled %d (%.0f requests/second)",
+            scheduled, getUnscheduled(), getRequestsPerSecond());
+    }
+}
@@ -0,0 +1,258 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Appointment Series Class
+ * A recurring appointment, e.g. physical therapy every Monday, Wednesday and
+ * Friday for three months. Occurrences are not stored up front: an
+ * occurrence becomes an Appointment the first time a query or availability
+ * check touches its date, with the ID seriesId-yyyyMMdd. Only touched
+ * occurrences take memory, and once an occurrence exists it is changed
+ * like any other appointment, so cancellations and reschedules are kept
+ * only for the occurrences they apply to.
+ *
+ * Occurrences that do not exist yet are counted from the rule. The counts
+ * for the date last counted (normally today) and the dates after it are
+ * kept as occurrences are created, so reading them again is constant time.
+ */
+public class AppointmentSeries {
+    private static final DateTimeFormatter OCCURRENCE_ID_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    
+    private String seriesId;
+    private String patientId;
+    private String patientName;
+    private String doctorId;
+    private String doctorName;
+    private String department;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalTime time;
+    private Set<DayOfWeek> daysOfWeek;
+    private String type;
+    private String notes;
+    private BitSet materializedDays;
+    private volatile long coveredRange;
+    private LocalDate countedDay;
+    private int pendingOnCountedDay;
+    private int pendingAfterCountedDay;
+    
+    // Constructor
+    public AppointmentSeries(String seriesId, String patientId, String patientName,
+                             String doctorId, String doctorName, String department,
+                             String startDate, String endDate, String time, Set<DayOfWeek> daysOfWeek,
+                             String type, String notes) {
+        this.seriesId = seriesId;
+        this.patientId = patientId;
+        this.patientName = patientName;
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.department = department;
+        this.startDate = Appointment.parseDate(startDate);
+        this.endDate = Appointment.parseDate(endDate);
+        this.time = Appointment.parseTime(time);
+        if (this.endDate.isBefore(this.startDate)) {
+            throw new IllegalArgumentException("Series ends before it starts: " + startDate + " - " + endDate);
+        }
+        if (daysOfWeek.isEmpty()) {
+            throw new IllegalArgumentException("Series needs at least one day of the week");
+        }
+        this.daysOfWeek = Collections.unmodifiableSet(EnumSet.copyOf(daysOfWeek));
+        this.type = type;
+        this.notes = notes;
+        this.materializedDays = new BitSet();
+        this.coveredRange = packRange(1, 0);
+    }
+    
+    // Getters
+    public String getSeriesId() {
+        return seriesId;
+    }
+    
+    public String getPatientId() {
+        return patientId;
+    }
+    
+    public String getPatientName() {
+        return patientName;
+    }
+    
+    public String getDoctorId() {
+        return doctorId;
+    }
+    
+    public String getDoctorName() {
+        return doctorName;
+    }
+    
+    public String getDepartment() {
+        return department;
+    }
+    
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+    
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+    
+    public LocalTime getTime() {
+        return time;
+    }
+    
+    public Set<DayOfWeek> getDaysOfWeek() {
+        return daysOfWeek;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public String getNotes() {
+        return notes;
+    }
+    
+    /**
+     * Check whether the series has an occurrence on a date
+     * @param date Date
+     * @return true if an occurrence is planned on the date
+     */
+    public boolean occursOn(LocalDate date) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate) && daysOfWeek.contains(date.getDayOfWeek());
+    }
+    
+    /**
+     * Get the appointment ID of the occurrence on a date
+     * @param date Date of the occurrence
+     * @return Occurrence appointment ID
+     */
+    public String getOccurrenceId(LocalDate date) {
+        return seriesId + "-" + date.format(OCCURRENCE_ID_FORMAT);
+    }
+    
+    /**
+     * Create the occurrences in a date range that do not exist yet. Each new
+     * occurrence is handed to the consumer while the series is locked, so
+     * an occurrence is created once and no caller returns before the
+     * occurrences of its range have been stored.
+     * @param from First date
+     * @param to Last date
+     * @param consumer Receiver of the new occurrences
+     */
+    void materialize(LocalDate from, LocalDate to, Consumer<Appointment> consumer) {
+        long first = Math.max(from.toEpochDay(), startDate.toEpochDay());
+        long last = Math.min(to.toEpochDay(), endDate.toEpochDay());
+        long covered = coveredRange;
+        if (first > last || (first >= (int) (covered >> 32) && last <= (int) covered)) {
+            return;
+        }
+        synchronized (this) {
+            for (long day = first; day <= last; day++) {
+                int offset = (int) (day - startDate.toEpochDay());
+                LocalDate date = LocalDate.ofEpochDay(day);
+                if (daysOfWeek.contains(date.getDayOfWeek()) && !materializedDays.get(offset)) {
+                    materializedDays.set(offset);
+                    if (countedDay != null && day == countedDay.toEpochDay()) {
+                        pendingOnCountedDay--;
+                    } else if (countedDay != null && day > countedDay.toEpochDay()) {
+                        pendingAfterCountedDay--;
+                    }
+                    consumer.accept(createOccurrence(date));
+                }
+            }
+            // Track one contiguous range that is fully created, so repeated queries skip the lock
+            covered = coveredRange;
+            long coveredFrom = (int) (covered >> 32);
+            long coveredTo = (int) covered;
+            if (coveredFrom > coveredTo) {
+                coveredRange = packRange(first, last);
+            } else if (first <= coveredTo + 1 && last >= coveredFrom - 1) {
+                coveredRange = packRange(Math.min(first, coveredFrom), Math.max(last, coveredTo));
+            }
+        }
+    }
+    
+    /**
+     * Count the occurrences in a date range that have not been created yet,
+     * from the recurrence rule and without creating them
+     * @param from First date
+     * @param to Last date
+     * @return Number of planned occurrences in the range that do not exist yet
+     */
+    synchronized int countPendingOccurrences(LocalDate from, LocalDate to) {
+        long first = Math.max(from.toEpochDay(), startDate.toEpochDay());
+        long last = Math.min(to.toEpochDay(), endDate.toEpochDay());
+        if (first > last) {
+            return 0;
+        }
+        // Every whole week holds each day of the rule once; the rest is at most six days
+        long days = last - first + 1;
+        long pending = days / 7 * daysOfWeek.size();
+        DayOfWeek firstDay = LocalDate.ofEpochDay(first).getDayOfWeek();
+        for (int day = 0; day < days % 7; day++) {
+            if (daysOfWeek.contains(firstDay.plus(day))) {
+                pending++;
+            }
+        }
+        int lastOffset = (int) (last - startDate.toEpochDay());
+        for (int offset = materializedDays.nextSetBit((int) (first - startDate.toEpochDay()));
+             offset >= 0 && offset <= lastOffset; offset = materializedDays.nextSetBit(offset + 1)) {
+            pending--;
+        }
+        return (int) pending;
+    }
+    
+    /**
+     * Count the occurrences on a date that have not been created yet
+     * @param date Date
+     * @return 1 if the date has an occurrence that does not exist yet, else 0
+     */
+    synchronized int countPendingOn(LocalDate date) {
+        countPendingFrom(date);
+        return pendingOnCountedDay;
+    }
+    
+    /**
+     * Count the occurrences after a date that have not been created yet
+     * @param date Date
+     * @return Number of planned occurrences after the date that do not exist yet
+     */
+    synchronized int countPendingAfter(LocalDate date) {
+        countPendingFrom(date);
+        return pendingAfterCountedDay;
+    }
+    
+    private void countPendingFrom(LocalDate date) {
+        if (!date.equals(countedDay)) {
+            pendingOnCountedDay = countPendingOccurrences(date, date);
+            pendingAfterCountedDay = countPendingOccurrences(date.plusDays(1), endDate);
+            countedDay = date;
+        }
+    }
+    
+    private Appointment createOccurrence(LocalDate date) {
+        return new Appointment(getOccurrenceId(date), patientId, patientName,
+            doctorId, doctorName, department, date.toString(), time.toString(), type, notes);
+    }
+    
+    private static long packRange(long fromDay, long toDay) {
+        return (fromDay << 32) | (toDay & 0xFFFFFFFFL);
+    }
+    
+    @Override
+    public String toString() {
+        return "AppointmentSeries{" +
+                "seriesId='" + seriesId + '\'' +
+                ", patientName='" + patientName + '\'' +
+                ", doctorName='" + doctorName + '\'' +
+                ", startDate='" + startDate + '\'' +
+                ", endDate='" + endDate + '\'' +
+                ", time='" + time + '\'' +
+                ", daysOfWeek=" + daysOfWeek +
+                '}';
+    }
+}
@@ -41,11 +41,11 @@ public enum AppointmentStatus {
     }
     
     /**
-     * Check if status indicates appointment is active
+     * Check if status indicates appointment is active, i.e. still holds its time
      * @return true if appointment is active
      */
     public boolean isActive() {
-        return this == SCHEDULED || this == CONFIRMED;
+        return this == SCHEDULED || this == CONFIRMED || this == RESCHEDULED;
     }
     
     /**
@@ -0,0 +1,48 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Appointment Status Counts Class
+ * Incrementally maintained number of appointments per status, one counter
+ * per AppointmentStatus ordinal. The counters are atomic so appointments
+ * can be booked and updated from several threads; reads take no lock and
+ * allocate nothing.
+ */
+class AppointmentStatusCounts {
+    private AtomicIntegerArray counts;
+    
+    public AppointmentStatusCounts() {
+        this.counts = new AtomicIntegerArray(AppointmentStatus.values().length);
+    }
+    
+    /**
+     * Count an appointment with a status
+     * @param status Status of the appointment being stored
+     */
+    public void add(AppointmentStatus status) {
+        counts.incrementAndGet(status.ordinal());
+    }
+    
+    /**
+     * Stop counting an appointment with a status
+     * @param status Status of the appointment being dropped
+     */
+    public void remove(AppointmentStatus status) {
+        counts.decrementAndGet(status.ordinal());
+    }
+    
+    /**
+     * Move an appointment from one status to another
+     * @param from Previous status
+     * @param to New status
+     */
+    public void move(AppointmentStatus from, AppointmentStatus to) {
+        if (from != to) {
+            counts.decrementAndGet(from.ordinal());
+            counts.incrementAndGet(to.ordinal());
+        }
+    }
+    
+    public int getCount(AppointmentStatus status) {
+        return counts.get(status.ordinal());
+    }
+}
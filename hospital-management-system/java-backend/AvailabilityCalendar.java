@@ -0,0 +1,312 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Availability Calendar Class
+ * Free-slot bitmaps for every doctor over a rolling window of days, built
+ * from each doctor's daily slot template. Bit (day * slotsPerDay + slot) of
+ * a doctor's bitmap is set while the slot is free for the shortest
+ * appointment type, i.e. no minute from its start until that duration has
+ * passed is reserved, so the earliest free slot after a point in time is a
+ * scan over a few words per doctor. Candidates are confirmed against the
+ * booking engine for the whole duration actually requested.
+ *
+ * The bitmaps follow the booking engine through its slot listener and are
+ * re-checked against the engine before a slot is returned. The window moves
+ * forward when the date changes.
+ */
+class AvailabilityCalendar {
+    public static final int DEFAULT_HORIZON_DAYS = 90;
+    
+    private Collection<Doctor> doctors;
+    private AppointmentBookingEngine bookingEngine;
+    private int horizonDays;
+    private volatile CalendarWindow window;
+    
+    /**
+     * Create a calendar and start following the booking engine
+     * @param doctors Doctors whose slot templates define the calendar
+     * @param bookingEngine Engine holding the reserved slots
+     * @param horizonDays Number of days covered, starting today
+     */
+    public AvailabilityCalendar(Collection<Doctor> doctors, AppointmentBookingEngine bookingEngine, int horizonDays) {
+        if (horizonDays <= 0) {
+            throw new IllegalArgumentException("Horizon must be positive: " + horizonDays);
+        }
+        this.doctors = doctors;
+        this.bookingEngine = bookingEngine;
+        this.horizonDays = horizonDays;
+        this.window = new CalendarWindow(HospitalClock.today(), horizonDays, doctors, bookingEngine);
+        bookingEngine.setSlotListener(this::slotChanged);
+    }
+    
+    /**
+     * Find the earliest slots of a department's doctors that are free for
+     * an appointment of the given length
+     * @param department Department name (case-insensitive)
+     * @param after Earliest start time to consider
+     * @param count Maximum number of slots to return
+     * @param durationMinutes Appointment length in minutes; shorter than the
+     *        shortest appointment type counts as that type
+     * @return Free slots ordered by date, time and doctor ID
+     */
+    public List<AvailableSlot> findEarliest(String department, LocalDateTime after, int count, int durationMinutes) {
+        int duration = Math.max(durationMinutes, Appointment.SHORTEST_DURATION_MINUTES);
+        CalendarWindow current = currentWindow();
+        List<DoctorCalendar> calendars = current.byDepartment.get(department.trim().toLowerCase());
+        List<AvailableSlot> result = new ArrayList<>(Math.max(0, count));
+        if (calendars == null || count <= 0) {
+            return result;
+        }
+        
+        int startDay = (int) Math.max(0, after.toLocalDate().toEpochDay() - current.startDate.toEpochDay());
+        int startMinute = after.toLocalDate().isBefore(current.startDate) ? 0 :
+            AppointmentBookingEngine.minuteOfDay(after.toLocalTime()) + (after.getSecond() > 0 || after.getNano() > 0 ? 1 : 0);
+        
+        // Merge the doctors' next free slots, earliest first
+        PriorityQueue<long[]> candidates = new PriorityQueue<>((a, b) -> {
+            int order = Long.compare(a[0], b[0]);
+            return order != 0 ? order : calendars.get((int) a[1]).doctor.getDoctorId()
+                .compareTo(calendars.get((int) b[1]).doctor.getDoctorId());
+        });
+        for (int i = 0; i < calendars.size(); i++) {
+            DoctorCalendar calendar = calendars.get(i);
+            int bit = calendar.nextFree(current, calendar.firstBit(startDay, startMinute), duration);
+            if (bit >= 0) {
+                candidates.add(new long[] {calendar.sortKey(bit), i, bit});
+            }
+        }
+        
+        while (result.size() < count && !candidates.isEmpty()) {
+            long[] candidate = candidates.poll();
+            DoctorCalendar calendar = calendars.get((int) candidate[1]);
+            int bit = (int) candidate[2];
+            result.add(calendar.toSlot(current, bit));
+            int next = calendar.nextFree(current, bit + 1, duration);
+            if (next >= 0) {
+                candidates.add(new long[] {calendar.sortKey(next), candidate[1], next});
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Bring the free bits of the slots overlapping a range of minutes in line
+     * with the booking engine. The engine is read again after writing, so
+     * concurrent notifications for the same slot converge on its final state.
+     */
+    private void slotChanged(String doctorId, LocalDate date, int fromMinute, int toMinute) {
+        CalendarWindow current = window;
+        DoctorCalendar calendar = current.byDoctor.get(doctorId);
+        if (calendar == null) {
+            return;
+        }
+        long day = date.toEpochDay() - current.startDate.toEpochDay();
+        if (day < 0 || day >= horizonDays) {
+            return;
+        }
+        // A slot is affected if any minute it needs falls in the range
+        int slot = Arrays.binarySearch(calendar.slotMinutes, fromMinute - Appointment.SHORTEST_DURATION_MINUTES + 1);
+        for (slot = slot >= 0 ? slot : -slot - 1;
+             slot < calendar.slotMinutes.length && calendar.slotMinutes[slot] < toMinute; slot++) {
+            calendar.sync(current, (int) day * calendar.slotMinutes.length + slot);
+        }
+    }
+    
+    private CalendarWindow currentWindow() {
+        CalendarWindow current = window;
+        LocalDate today = HospitalClock.today();
+        if (!current.startDate.equals(today)) {
+            synchronized (this) {
+                current = window;
+                if (!current.startDate.equals(today)) {
+                    current = new CalendarWindow(today, horizonDays, doctors, bookingEngine);
+                    window = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Bitmaps of all doctors for one range of days
+     */
+    private static class CalendarWindow {
+        private final LocalDate startDate;
+        private final AppointmentBookingEngine bookingEngine;
+        private final Map<String, DoctorCalendar> byDoctor;
+        private final Map<String, List<DoctorCalendar>> byDepartment;
+        
+        CalendarWindow(LocalDate startDate, int horizonDays, Collection<Doctor> doctors,
+                       AppointmentBookingEngine bookingEngine) {
+            this.startDate = startDate;
+            this.bookingEngine = bookingEngine;
+            this.byDoctor = new HashMap<>();
+            this.byDepartment = new HashMap<>();
+            for (Doctor doctor : doctors) {
+                DoctorCalendar calendar = new DoctorCalendar(doctor, horizonDays);
+                byDoctor.put(doctor.getDoctorId(), calendar);
+                byDepartment.computeIfAbsent(doctor.getDepartment().toLowerCase(), key -> new ArrayList<>())
+                    .add(calendar);
+                calendar.fill(this, horizonDays);
+            }
+        }
+    }
+    
+    /**
+     * Free-slot bitmap of one doctor
+     */
+    private static class DoctorCalendar {
+        private final Doctor doctor;
+        private final int[] slotMinutes;
+        private final int bitCount;
+        private final AtomicLongArray freeBits;
+        
+        DoctorCalendar(Doctor doctor, int horizonDays) {
+            this.doctor = doctor;
+            this.slotMinutes = doctor.getAvailableSlots().stream()
+                .mapToInt(time -> AppointmentBookingEngine.minuteOfDay(Appointment.parseTime(time)))
+                .sorted().distinct().toArray();
+            this.bitCount = horizonDays * slotMinutes.length;
+            this.freeBits = new AtomicLongArray((bitCount + 63) / 64);
+        }
+        
+        /**
+         * Set the bits of all slots that are free in the engine, reading each doctor-day's bitmap once
+         */
+        void fill(CalendarWindow window, int horizonDays) {
+            for (int day = 0; day < horizonDays; day++) {
+                AtomicLongArray reserved = window.bookingEngine.getDaySlots(doctor.getDoctorId(),
+                    window.startDate.plusDays(day));
+                for (int slot = 0; slot < slotMinutes.length; slot++) {
+                    if (AppointmentBookingEngine.isFree(reserved, slotMinutes[slot],
+                            Appointment.SHORTEST_DURATION_MINUTES)) {
+                        int bit = day * slotMinutes.length + slot;
+                        freeBits.set(bit >>> 6, freeBits.get(bit >>> 6) | (1L << bit));
+                    }
+                }
+            }
+        }
+        
+        /**
+         * First bit at or after a day and minute of day
+         */
+        int firstBit(int day, int minute) {
+            int slot = 0;
+            while (slot < slotMinutes.length && slotMinutes[slot] < minute) {
+                slot++;
+            }
+            return day * slotMinutes.length + slot;
+        }
+        
+        /**
+         * Find the next slot free for a whole duration, confirming it with the booking engine
+         * @return Bit index, or -1 if no free slot is left in the window
+         */
+        int nextFree(CalendarWindow window, int from, int durationMinutes) {
+            for (int bit = nextSetBit(from); bit >= 0; bit = nextSetBit(bit + 1)) {
+                if (window.bookingEngine.isFree(doctor.getDoctorId(), dateOf(window, bit), minuteOf(bit),
+                        durationMinutes)) {
+                    return bit;
+                }
+                // Either the bit is stale or only a longer duration does not fit
+                sync(window, bit);
+            }
+            return -1;
+        }
+        
+        private int nextSetBit(int from) {
+            if (from >= bitCount) {
+                return -1;
+            }
+            int word = from >>> 6;
+            long bits = freeBits.get(word) & (-1L << from);
+            while (bits == 0) {
+                if (++word >= freeBits.length()) {
+                    return -1;
+                }
+                bits = freeBits.get(word);
+            }
+            int bit = (word << 6) + Long.numberOfTrailingZeros(bits);
+            return bit < bitCount ? bit : -1;
+        }
+        
+        void sync(CalendarWindow window, int bit) {
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            LocalDate date = dateOf(window, bit);
+            int minute = minuteOf(bit);
+            boolean free;
+            do {
+                free = isFree(window, date, minute);
+                long current;
+                long updated;
+                do {
+                    current = freeBits.get(word);
+                    updated = free ? current | mask : current & ~mask;
+                } while (current != updated && !freeBits.compareAndSet(word, current, updated));
+            } while (free != isFree(window, date, minute));
+        }
+        
+        private boolean isFree(CalendarWindow window, LocalDate date, int minute) {
+            return window.bookingEngine.isFree(doctor.getDoctorId(), date, minute, Appointment.SHORTEST_DURATION_MINUTES);
+        }
+        
+        long sortKey(int bit) {
+            return (long) (bit / slotMinutes.length) * 24 * 60 + minuteOf(bit);
+        }
+        
+        AvailableSlot toSlot(CalendarWindow window, int bit) {
+            return new AvailableSlot(doctor.getDoctorId(), doctor.getName(), doctor.getDepartment(),
+                dateOf(window, bit), LocalTime.of(minuteOf(bit) / 60, minuteOf(bit) % 60));
+        }
+        
+        private LocalDate dateOf(CalendarWindow window, int bit) {
+            return window.startDate.plusDays(bit / slotMinutes.length);
+        }
+        
+        private int minuteOf(int bit) {
+            return slotMinutes[bit % slotMinutes.length];
+        }
+    }
+}
+
+/**
+ * Available Slot Class
+ * A free appointment slot of a doctor
+ */
+class AvailableSlot {
+    private String doctorId;
+    private String doctorName;
+    private String department;
+    private LocalDate date;
+    private LocalTime time;
+    
+    public AvailableSlot(String doctorId, String doctorName, String department, LocalDate date, LocalTime time) {
+        this.doctorId = doctorId;
+        this.doctorName = doctorName;
+        this.department = department;
+        this.date = date;
+        this.time = time;
+    }
+    
+    // Getters
+    public String getDoctorId() { return doctorId; }
+    public String getDoctorName() { return doctorName; }
+    public String getDepartment() { return department; }
+    public LocalDate getDate() { return date; }
+    public LocalTime getTime() { return time; }
+    
+    @Override
+    public String toString() {
+        return "AvailableSlot{" +
+                "doctorId='" + doctorId + '\'' +
+                ", doctorName='" + doctorName + '\'' +
+                ", date=" + date +
+                ", time=" + time +
+                '}';
+    }
+}
@@ -1,19 +1,37 @@
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
  * Billing Manager Class
- * Handles all billing and invoicing operations
+ * Handles all billing and invoicing operations.
+ * Changes are serialized on the manager; lookups read concurrent maps and
+ * indexes without locking, so they may run while invoices are added.
  */
 public class BillingManager {
     private Map<String, Invoice> invoices;
-    private int invoiceCounter;
+    private AtomicInteger invoiceCounter;
+    private Map<PageSortKey, PagedIndex<Invoice>> pageIndexes;
+    private PatientAdjacencyIndex patientIndex;
+    private RevenueCube revenueCube;
+    private InvoiceStatusTotals statusTotals;
+    private Map<String, String> invoiceByAppointment;
     
     public BillingManager() {
-        this.invoices = new HashMap<>();
-        this.invoiceCounter = 4; // Starting from INV004
+        this.invoices = new ConcurrentHashMap<>();
+        this.patientIndex = new PatientAdjacencyIndex();
+        this.revenueCube = new RevenueCube();
+        this.statusTotals = new InvoiceStatusTotals();
+        this.invoiceByAppointment = new ConcurrentHashMap<>();
+        this.invoiceCounter = new AtomicInteger(4); // Starting from INV004
+        this.pageIndexes = new EnumMap<>(PageSortKey.class);
+        pageIndexes.put(PageSortKey.ID, new PagedIndex<>(PageSortKey.ID,
+            Invoice::getInvoiceId, Invoice::getInvoiceId, invoices::get));
+        pageIndexes.put(PageSortKey.DATE, new PagedIndex<>(PageSortKey.DATE,
+            Invoice::getInvoiceId, Invoice::getDate, invoices::get));
         initializeSampleData();
     }
     
@@ -48,12 +66,67 @@ public class BillingManager {
      * Add new invoice
      * @param invoice Invoice to add
      */
-    public void addInvoice(Invoice invoice) {
-        invoices.put(invoice.getInvoiceId(), invoice);
+    public synchronized void addInvoice(Invoice invoice) {
+        storeInvoice(invoice);
         System.out.println("Invoice created: " + invoice.getInvoiceId() + 
             " for " + invoice.getPatientName() + " - $" + invoice.getTotal());
     }
     
+    /**
+     * Add a batch of invoices in one step. An invoice for an appointment
+     * that already has an invoice is skipped, so a billing run can be
+     * repeated safely.
+     * @param batch Invoices to add
+     * @return Invoices added
+     */
+    public synchronized List<Invoice> addInvoices(List<Invoice> batch) {
+        List<Invoice> added = new ArrayList<>(batch.size());
+        for (Invoice invoice : batch) {
+            if (invoice.getAppointmentId() == null || !invoiceByAppointment.containsKey(invoice.getAppointmentId())) {
+                storeInvoice(invoice);
+                added.add(invoice);
+            }
+        }
+        System.out.println(added.size() + " invoices created, " + (batch.size() - added.size()) +
+            " already billed");
+        return added;
+    }
+    
+    /**
+     * Put an invoice into the map and every index
+     */
+    private void storeInvoice(Invoice invoice) {
+        Invoice previous = invoices.put(invoice.getInvoiceId(), invoice);
+        if (previous != null) {
+            revenueCube.remove(previous);
+            statusTotals.remove(previous.getStatus(), previous.getTotal());
+            if (!previous.getPatientId().equals(invoice.getPatientId())) {
+                patientIndex.remove(previous.getPatientId(), previous.getInvoiceId());
+            }
+            if (previous.getAppointmentId() != null) {
+                invoiceByAppointment.remove(previous.getAppointmentId(), previous.getInvoiceId());
+            }
+        }
+        revenueCube.add(invoice);
+        statusTotals.add(invoice.getStatus(), invoice.getTotal());
+        patientIndex.add(invoice.getPatientId(), invoice.getInvoiceId());
+        if (invoice.getAppointmentId() != null) {
+            invoiceByAppointment.put(invoice.getAppointmentId(), invoice.getInvoiceId());
+        }
+        for (PagedIndex<Invoice> pageIndex : pageIndexes.values()) {
+            pageIndex.put(invoice);
+        }
+    }
+    
+    /**
+     * Check whether an appointment has been billed
+     * @param appointmentId Appointment ID
+     * @return true if an invoice exists for the appointment
+     */
+    public boolean isAppointmentBilled(String appointmentId) {
+        return invoiceByAppointment.containsKey(appointmentId);
+    }
+    
     /**
      * Get all invoices
      * @return List of all invoices
@@ -62,6 +135,21 @@ public class BillingManager {
         return new ArrayList<>(invoices.values());
     }
     
+    /**
+     * Get one page of invoices
+     * @param sortKey Order to list invoices in
+     * @param pageSize Maximum number of invoices on the page
+     * @param continuationToken Token from the previous page, or null for the first page
+     * @return Page of invoices with the token for the next page
+     */
+    public Page<Invoice> getInvoicesPage(PageSortKey sortKey, int pageSize, String continuationToken) {
+        PagedIndex<Invoice> index = pageIndexes.get(sortKey);
+        if (index == null) {
+            throw new IllegalArgumentException("Unsupported sort key for invoices: " + sortKey);
+        }
+        return index.page(pageSize, continuationToken);
+    }
+    
     /**
      * Get specific invoice by ID
      * @param invoiceId Invoice ID
@@ -77,9 +165,11 @@ public class BillingManager {
      * @param status New payment status
      * @return true if successful
      */
-    public boolean updateInvoiceStatus(String invoiceId, PaymentStatus status) {
+    public synchronized boolean updateInvoiceStatus(String invoiceId, PaymentStatus status) {
         Invoice invoice = invoices.get(invoiceId);
         if (invoice != null) {
+            revenueCube.move(invoice, invoice.getStatus(), status);
+            statusTotals.move(invoice.getStatus(), status, invoice.getTotal());
             invoice.setStatus(status);
             System.out.println("Invoice " + invoiceId + " status updated to " + status);
             return true;
@@ -93,9 +183,15 @@ public class BillingManager {
      * @return List of invoices for the patient
      */
     public List<Invoice> getInvoicesByPatient(String patientId) {
-        return invoices.values().stream()
-                .filter(invoice -> invoice.getPatientId().equals(patientId))
-                .collect(Collectors.toList());
+        List<Invoice> result = new ArrayList<>();
+        for (String invoiceId : patientIndex.get(patientId)) {
+            // The index may briefly list an invoice that is still being stored or replaced
+            Invoice invoice = invoices.get(invoiceId);
+            if (invoice != null) {
+                result.add(invoice);
+            }
+        }
+        return result;
     }
     
     /**
@@ -113,33 +209,51 @@ public class BillingManager {
      * Get total revenue from paid invoices
      * @return Total revenue
      */
-    public double getTotalRevenue() {
-        return invoices.values().stream()
-                .filter(invoice -> invoice.getStatus() == PaymentStatus.PAID)
-                .mapToDouble(Invoice::getTotal)
-                .sum();
+    public Money getTotalRevenue() {
+        return statusTotals.getSum(PaymentStatus.PAID);
     }
     
     /**
      * Get pending amount from unpaid invoices
      * @return Pending amount
      */
-    public double getPendingAmount() {
-        return invoices.values().stream()
-                .filter(invoice -> invoice.getStatus() == PaymentStatus.PENDING)
-                .mapToDouble(Invoice::getTotal)
-                .sum();
+    public Money getPendingAmount() {
+        return statusTotals.getSum(PaymentStatus.PENDING);
     }
     
     /**
      * Get overdue amount
      * @return Overdue amount
      */
-    public double getOverdueAmount() {
-        return invoices.values().stream()
-                .filter(invoice -> invoice.getStatus() == PaymentStatus.OVERDUE)
-                .mapToDouble(Invoice::getTotal)
-                .sum();
+    public Money getOverdueAmount() {
+        return statusTotals.getSum(PaymentStatus.OVERDUE);
+    }
+    
+    /**
+     * Get the number of invoices with a status
+     * @param status Payment status
+     * @return Number of invoices with the status
+     */
+    public int getInvoiceCount(PaymentStatus status) {
+        return statusTotals.getCount(status);
+    }
+    
+    /**
+     * Get the total of the invoices with a status
+     * @param status Payment status
+     * @return Sum of the invoice totals
+     */
+    public Money getAmount(PaymentStatus status) {
+        return statusTotals.getSum(status);
+    }
+    
+    /**
+     * Recompute the per-status counts and sums from all invoices and compare
+     * them with the running totals
+     * @return One line per status whose running totals are wrong, empty if consistent
+     */
+    public synchronized List<String> verifyStatusTotals() {
+        return statusTotals.diff(InvoiceStatusTotals.recount(invoices.values()));
     }
     
     /**
@@ -147,7 +261,7 @@ public class BillingManager {
      * @return New invoice ID
      */
     public String generateInvoiceId() {
-        return String.format("INV%03d", invoiceCounter++);
+        return String.format("INV%03d", invoiceCounter.getAndIncrement());
     }
     
     /**
@@ -156,24 +270,57 @@ public class BillingManager {
      * @param year Year
      * @return Monthly revenue
      */
-    public double getMonthlyRevenue(int month, int year) {
-        return invoices.values().stream()
-                .filter(invoice -> {
-                    String[] dateParts = invoice.getDate().split("-");
-                    int invoiceYear = Integer.parseInt(dateParts[0]);
-                    int invoiceMonth = Integer.parseInt(dateParts[1]);
-                    return invoiceYear == year && invoiceMonth == month && 
-                           invoice.getStatus() == PaymentStatus.PAID;
-                })
-                .mapToDouble(Invoice::getTotal)
-                .sum();
+    public Money getMonthlyRevenue(int month, int year) {
+        return Money.ofMinor(revenueCube.getMonth(year, month, PaymentStatus.PAID));
+    }
+    
+    /**
+     * Calculate a department's monthly revenue
+     * @param month Month (1-12)
+     * @param year Year
+     * @param department Department
+     * @return Monthly revenue of the department
+     */
+    public Money getMonthlyRevenue(int month, int year, String department) {
+        return Money.ofMinor(revenueCube.getMonth(year, month, PaymentStatus.PAID, department));
+    }
+    
+    /**
+     * Calculate quarterly revenue
+     * @param quarter Quarter (1-4)
+     * @param year Year
+     * @return Quarterly revenue
+     */
+    public Money getQuarterlyRevenue(int quarter, int year) {
+        return Money.ofMinor(revenueCube.getQuarter(year, quarter, PaymentStatus.PAID));
+    }
+    
+    /**
+     * Calculate yearly revenue
+     * @param year Year
+     * @return Yearly revenue
+     */
+    public Money getYearlyRevenue(int year) {
+        return Money.ofMinor(revenueCube.getYear(year, PaymentStatus.PAID));
+    }
+    
+    /**
+     * Get the total of a month's invoices in any status, e.g. amounts still
+     * pending from a month
+     * @param month Month (1-12)
+     * @param year Year
+     * @param status Payment status
+     * @return Total of the month's invoices with the status
+     */
+    public Money getMonthlyAmount(int month, int year, PaymentStatus status) {
+        return Money.ofMinor(revenueCube.getMonth(year, month, status));
     }
     
     /**
-     * Get billing statistics
+     * Get billing statistics, all taken at the same point between changes
      * @return Map of billing statistics
      */
-    public Map<String, Object> getBillingStatistics() {
+    public synchronized Map<String, Object> getBillingStatistics() {
         Map<String, Object> stats = new HashMap<>();
         
         stats.put("Total Invoices", invoices.size());
@@ -182,7 +329,7 @@ public class BillingManager {
         stats.put("Overdue Amount", getOverdueAmount());
         
         for (PaymentStatus status : PaymentStatus.values()) {
-            stats.put(status.getDisplayName() + " Invoices", getInvoicesByStatus(status).size());
+            stats.put(status.getDisplayName() + " Invoices", statusTotals.getCount(status));
         }
         
         return stats;
@@ -208,51 +355,78 @@ class BillingItem {
     private String itemId;
     private String description;
     private int quantity;
-    private double unitPrice;
-    private double total;
+    private Money unitPrice;
+    private Money total;
     
-    public BillingItem(String itemId, String description, int quantity, double unitPrice) {
+    public BillingItem(String itemId, String description, int quantity, Money unitPrice) {
         this.itemId = itemId;
         this.description = description;
         this.quantity = quantity;
         this.unitPrice = unitPrice;
-        this.total = quantity * unitPrice;
+        this.total = unitPrice.times(quantity);
+    }
+    
+    public BillingItem(String itemId, String description, int quantity, double unitPrice) {
+        this(itemId, description, quantity, Money.of(unitPrice));
     }
     
     // Getters
     public String getItemId() { return itemId; }
     public String getDescription() { return description; }
     public int getQuantity() { return quantity; }
-    public double getUnitPrice() { return unitPrice; }
-    public double getTotal() { return total; }
+    public Money getUnitPrice() { return unitPrice; }
+    public Money getTotal() { return total; }
 }
 
 /**
  * Invoice Class
  */
 class Invoice {
+    static final int TAX_RATE_BASIS_POINTS = 800; // 8% tax
+    static final String DEFAULT_DEPARTMENT = "General";
+    
     private String invoiceId;
     private String patientId;
     private String patientName;
+    private String department;
+    private String appointmentId;
     private String date;
+    private LocalDate localDate;
     private String dueDate;
     private List<BillingItem> items;
-    private double subtotal;
-    private double tax;
-    private double total;
-    private PaymentStatus status;
+    private Money subtotal;
+    private Money tax;
+    private Money total;
+    private volatile PaymentStatus status;
     
     public Invoice(String invoiceId, String patientId, String patientName,
                   String date, String dueDate, List<BillingItem> items) {
+        this(invoiceId, patientId, patientName, DEFAULT_DEPARTMENT, date, dueDate, items);
+    }
+    
+    public Invoice(String invoiceId, String patientId, String patientName, String department,
+                  String date, String dueDate, List<BillingItem> items) {
+        this(invoiceId, patientId, patientName, department, null, date, dueDate, items);
+    }
+    
+    public Invoice(String invoiceId, String patientId, String patientName, String department,
+                  String appointmentId, String date, String dueDate, List<BillingItem> items) {
         this.invoiceId = invoiceId;
         this.patientId = patientId;
         this.patientName = patientName;
+        this.department = department;
+        this.appointmentId = appointmentId;
         this.date = date;
+        this.localDate = Appointment.parseDate(date);
         this.dueDate = dueDate;
         this.items = items;
-        this.subtotal = items.stream().mapToDouble(BillingItem::getTotal).sum();
-        this.tax = this.subtotal * 0.08; // 8% tax
-        this.total = this.subtotal + this.tax;
+        long subtotalMinor = 0;
+        for (BillingItem item : items) {
+            subtotalMinor = Money.add(subtotalMinor, item.getTotal().getMinorUnits());
+        }
+        this.subtotal = Money.ofMinor(subtotalMinor);
+        this.tax = subtotal.percentage(TAX_RATE_BASIS_POINTS);
+        this.total = subtotal.plus(tax);
         this.status = PaymentStatus.PENDING;
     }
     
@@ -260,16 +434,19 @@ class Invoice {
     public String getInvoiceId() { return invoiceId; }
     public String getPatientId() { return patientId; }
     public String getPatientName() { return patientName; }
+    public String getDepartment() { return department; }
+    public String getAppointmentId() { return appointmentId; }
     public String getDate() { return date; }
+    public LocalDate getLocalDate() { return localDate; }
     public String getDueDate() { return dueDate; }
     public List<BillingItem> getItems() { return items; }
-    public double getSubtotal() { return subtotal; }
-    public double getTax() { return tax; }
-    public double getTotal() { return total; }
+    public Money getSubtotal() { return subtotal; }
+    public Money getTax() { return tax; }
+    public Money getTotal() { return total; }
     public PaymentStatus getStatus() { return status; }
     
-    // Setters
-    public void setStatus(PaymentStatus status) { this.status = status; }
+    // Only BillingManager.updateInvoiceStatus changes the status, so the rollups move with it
+    void setStatus(PaymentStatus status) { this.status = status; }
 }
 
 /**
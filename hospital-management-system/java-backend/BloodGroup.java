@@ -0,0 +1,48 @@
+/**
+ * Blood Group Enumeration
+ * Defines the ABO/Rh blood groups recorded for a patient
+ */
+public enum BloodGroup {
+    A_POSITIVE("A+"),
+    A_NEGATIVE("A-"),
+    B_POSITIVE("B+"),
+    B_NEGATIVE("B-"),
+    AB_POSITIVE("AB+"),
+    AB_NEGATIVE("AB-"),
+    O_POSITIVE("O+"),
+    O_NEGATIVE("O-"),
+    UNKNOWN("Unknown");
+    
+    private final String displayName;
+    
+    BloodGroup(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+    
+    /**
+     * Get BloodGroup from string
+     * @param bloodGroup String representation such as "AB+" or "O-"
+     * @return BloodGroup enum value, UNKNOWN if not recognized
+     */
+    public static BloodGroup fromString(String bloodGroup) {
+        if (bloodGroup != null) {
+            String value = bloodGroup.replace(" ", "");
+            for (BloodGroup group : BloodGroup.values()) {
+                if (group.displayName.equalsIgnoreCase(value) ||
+                    group.name().equalsIgnoreCase(value)) {
+                    return group;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Booking Result Enumeration
+ * Defines the outcome of an attempt to book an appointment slot
+ */
+public enum BookingResult {
+    BOOKED("Booked"),
+    CONFLICT("Conflict");
+    
+    private final String displayName;
+    
+    BookingResult(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+    
+    /**
+     * Get BookingResult from string
+     * @param result String representation of result
+     * @return BookingResult enum value, or null if not recognized
+     */
+    public static BookingResult fromString(String result) {
+        if (result != null) {
+            String value = result.trim();
+            for (BookingResult bookingResult : BookingResult.values()) {
+                if (bookingResult.displayName.equalsIgnoreCase(value) ||
+                    bookingResult.name().equalsIgnoreCase(value)) {
+                    return bookingResult;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Check if the slot was booked
+     * @return true if the booking succeeded
+     */
+    public boolean isBooked() {
+        return this == BOOKED;
+    }
+}
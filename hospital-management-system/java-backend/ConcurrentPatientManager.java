@@ -0,0 +1,138 @@
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent Patient Manager Class
+ * Thread-safe patient manager for multiple registration terminals.
+ * Patients are stored in a ConcurrentHashMap and mutations of the same
+ * patient ID are serialized through a fixed set of striped locks, so
+ * registrations of different patients proceed in parallel.
+ */
+public class ConcurrentPatientManager extends PatientManager {
+    private static final int STRIPE_COUNT = 64;
+    
+    private ReentrantLock[] stripes;
+    
+    public ConcurrentPatientManager() {
+        super(new ConcurrentHashMap<>());
+        this.stripes = new ReentrantLock[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+    
+    /**
+     * Add a new patient to the system
+     * @param patient Patient object to add
+     */
+    @Override
+    public void addPatient(Patient patient) {
+        ReentrantLock lock = stripeFor(patient.getPatientId());
+        lock.lock();
+        try {
+            super.addPatient(patient);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Add a batch of patients while holding every stripe, in a fixed order
+     * @param batch Patients to add
+     */
+    @Override
+    public void addPatients(Collection<Patient> batch) {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            super.addPatients(batch);
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+    
+    /**
+     * Replace a stored patient if one exists under the ID
+     * @param patientId Patient ID to update
+     * @param updatedPatient Updated patient data
+     * @return true if update successful, false otherwise
+     */
+    @Override
+    public boolean updatePatient(String patientId, Patient updatedPatient) {
+        ReentrantLock lock = stripeFor(patientId);
+        lock.lock();
+        try {
+            return super.updatePatient(patientId, updatedPatient);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Replace a stored patient only if it is still the expected instance
+     * @param patientId Patient ID to update
+     * @param expectedPatient Patient instance the caller read earlier
+     * @param updatedPatient Updated patient data
+     * @return true if update successful, false if the patient was changed or removed meanwhile
+     */
+    public boolean updatePatient(String patientId, Patient expectedPatient, Patient updatedPatient) {
+        ReentrantLock lock = stripeFor(patientId);
+        lock.lock();
+        try {
+            return getPatient(patientId) == expectedPatient &&
+                   super.updatePatient(patientId, updatedPatient);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Remove a patient from the system
+     * @param patientId Patient ID to remove
+     * @return true if removal successful, false otherwise
+     */
+    @Override
+    public boolean removePatient(String patientId) {
+        ReentrantLock lock = stripeFor(patientId);
+        lock.lock();
+        try {
+            return super.removePatient(patientId);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Lock the patient's stripe for the duration of a setter call
+     * @param patient Patient about to change
+     */
+    @Override
+    protected void beforePatientChange(Patient patient) {
+        stripeFor(patient.getPatientId()).lock();
+        super.beforePatientChange(patient);
+    }
+    
+    /**
+     * Re-index the patient and release the stripe taken in beforePatientChange
+     * @param patient Patient that changed
+     */
+    @Override
+    protected void afterPatientChange(Patient patient) {
+        try {
+            super.afterPatientChange(patient);
+        } finally {
+            stripeFor(patient.getPatientId()).unlock();
+        }
+    }
+    
+    private ReentrantLock stripeFor(String patientId) {
+        // Spread the hash so IDs differing only in high bits use different stripes
+        int hash = patientId.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (STRIPE_COUNT - 1)];
+    }
+}
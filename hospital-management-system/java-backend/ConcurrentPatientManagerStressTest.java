@@ -0,0 +1,138 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Concurrent Patient Manager Stress Test Class
+ * Runnable stress test for ConcurrentPatientManager. For 1 to 64 threads,
+ * every thread registers its own patients and all threads increment the
+ * age of a small set of shared patients through the compare-and-set
+ * updatePatient, retrying when another thread got there first. Afterwards
+ * every increment must be visible in the shared patients (no lost
+ * updates) and the patient count, bitmap counts and gender counts must
+ * match the registered patients.
+ *
+ * Usage: java ConcurrentPatientManagerStressTest [operationsPerThread]
+ * Exits with status 1 if any check fails.
+ */
+public class ConcurrentPatientManagerStressTest {
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int SHARED_PATIENTS = 16;
+    private static final int SAMPLE_PATIENTS = 4;
+    
+    public static void main(String[] args) throws Exception {
+        int operationsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        PrintStream console = System.out;
+        boolean passed = true;
+        
+        console.printf("%-8s %14s %10s %s%n", "Threads", "Operations/s", "Retries", "Result");
+        for (int threads : THREAD_COUNTS) {
+            // Registration messages would dominate the timing
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            RunResult result;
+            try {
+                result = run(threads, operationsPerThread);
+            } finally {
+                System.setOut(console);
+            }
+            console.printf("%-8d %14.0f %10d %s%n", threads, result.operationsPerSecond, result.retries,
+                result.failures.isEmpty() ? "ok" : "FAILED");
+            for (String failure : result.failures) {
+                console.println("  " + failure);
+            }
+            passed &= result.failures.isEmpty();
+        }
+        console.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+    
+    private static RunResult run(int threads, int operationsPerThread) throws Exception {
+        ConcurrentPatientManager manager = new ConcurrentPatientManager();
+        for (int i = 0; i < SHARED_PATIENTS; i++) {
+            manager.addPatient(newPatient("S" + i, i));
+        }
+        int registrationsPerThread = operationsPerThread / 2;
+        int incrementsPerThread = operationsPerThread - registrationsPerThread;
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> retries = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            retries.add(pool.submit(() -> {
+                start.await();
+                long retried = 0;
+                for (int i = 0; i < operationsPerThread; i++) {
+                    if (i % 2 == 0 && i / 2 < registrationsPerThread) {
+                        manager.addPatient(newPatient("T" + thread + "-" + i, i));
+                    } else {
+                        String sharedId = "S" + ((i + thread) % SHARED_PATIENTS);
+                        while (true) {
+                            Patient current = manager.getPatient(sharedId);
+                            Patient updated = current.copy();
+                            updated.setAge(current.getAge() + 1);
+                            if (manager.updatePatient(sharedId, current, updated)) {
+                                break;
+                            }
+                            retried++;
+                        }
+                    }
+                }
+                return retried;
+            }));
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        long totalRetries = 0;
+        for (Future<Long> future : retries) {
+            totalRetries += future.get();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        pool.shutdown();
+        
+        List<String> failures = new ArrayList<>();
+        long expectedAges = 0;
+        long actualAges = 0;
+        for (int i = 0; i < SHARED_PATIENTS; i++) {
+            expectedAges += 20 + i;
+            actualAges += manager.getPatient("S" + i).getAge();
+        }
+        expectedAges += (long) threads * incrementsPerThread;
+        if (actualAges != expectedAges) {
+            failures.add("Lost updates: shared ages sum to " + actualAges + ", expected " + expectedAges);
+        }
+        int expectedPatients = SAMPLE_PATIENTS + SHARED_PATIENTS + threads * registrationsPerThread;
+        check(failures, "Total patients", manager.getTotalPatients(), expectedPatients);
+        check(failures, "Active patients", manager.getActivePatients(), expectedPatients);
+        check(failures, "Status bitmap count", manager.countPatients(PatientStatus.ACTIVE, null), expectedPatients);
+        check(failures, "Gender counts", manager.getGenderCount("Male") + manager.getGenderCount("Female"),
+            expectedPatients);
+        
+        RunResult result = new RunResult();
+        result.operationsPerSecond = (double) threads * operationsPerThread * 1_000_000_000L / elapsed;
+        result.retries = totalRetries;
+        result.failures = failures;
+        return result;
+    }
+    
+    private static void check(List<String> failures, String what, long actual, long expected) {
+        if (actual != expected) {
+            failures.add(what + ": " + actual + ", expected " + expected);
+        }
+    }
+    
+    private static Patient newPatient(String patientId, int seed) {
+        return new Patient(patientId, "First" + seed, "Last" + seed, 20 + seed % 60,
+            seed % 2 == 0 ? "Male" : "Female", "+1-555-" + seed, "p" + seed + "@email.com",
+            "O+", "Aetna", seed + " Main St", "Contact");
+    }
+    
+    private static class RunResult {
+        private double operationsPerSecond;
+        private long retries;
+        private List<String> failures;
+    }
+}
@@ -0,0 +1,195 @@
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Duplicate Patient Detector Class
+ * Finds likely duplicate registrations of the same person.
+ * Candidate pairs come only from PatientManager's blocking index (phonetic
+ * name, normalized phone, email local part) and are then scored on name
+ * similarity, phone, email, age and gender.
+ */
+public class DuplicatePatientDetector {
+    private static final double DEFAULT_THRESHOLD = 0.75;
+    private static final int DEFAULT_MAX_BLOCK_SIZE = 500;
+    
+    private PatientManager patientManager;
+    private double threshold;
+    private int maxBlockSize;
+    
+    public DuplicatePatientDetector(PatientManager patientManager) {
+        this(patientManager, DEFAULT_THRESHOLD, DEFAULT_MAX_BLOCK_SIZE);
+    }
+    
+    /**
+     * @param patientManager Patient manager to check against
+     * @param threshold Minimum score (0-1) for a pair to be reported
+     * @param maxBlockSize Blocks larger than this are skipped in batch mode
+     */
+    public DuplicatePatientDetector(PatientManager patientManager, double threshold, int maxBlockSize) {
+        this.patientManager = patientManager;
+        this.threshold = threshold;
+        this.maxBlockSize = maxBlockSize;
+    }
+    
+    /**
+     * Check a patient being registered against the stored patients
+     * @param patient Patient to check, need not be stored yet
+     * @return Likely duplicates, best match first
+     */
+    public List<DuplicateMatch> findDuplicates(Patient patient) {
+        List<DuplicateMatch> matches = new ArrayList<>();
+        for (String candidateId : patientManager.getDuplicateCandidates(patient)) {
+            Patient candidate = patientManager.getPatient(candidateId);
+            if (candidate == null || candidateId.equals(patient.getPatientId())) {
+                continue;
+            }
+            double score = score(patient, candidate);
+            if (score >= threshold) {
+                matches.add(new DuplicateMatch(patient.getPatientId(), candidateId, score));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(DuplicateMatch::getScore).reversed());
+        return matches;
+    }
+    
+    /**
+     * Find likely duplicate pairs across all stored patients, scoring pairs in parallel
+     * @return Likely duplicate pairs, best match first
+     */
+    public List<DuplicateMatch> findAllDuplicates() {
+        // A pair sharing several blocks is generated once
+        Set<List<String>> pairs = new HashSet<>();
+        for (Set<String> block : patientManager.getDuplicateBlocks()) {
+            if (block.size() > maxBlockSize) {
+                continue;
+            }
+            String[] ids = block.toArray(new String[0]);
+            Arrays.sort(ids);
+            for (int i = 0; i < ids.length; i++) {
+                for (int j = i + 1; j < ids.length; j++) {
+                    pairs.add(Arrays.asList(ids[i], ids[j]));
+                }
+            }
+        }
+        
+        return pairs.parallelStream()
+                .map(pair -> {
+                    Patient first = patientManager.getPatient(pair.get(0));
+                    Patient second = patientManager.getPatient(pair.get(1));
+                    if (first == null || second == null) {
+                        return null;
+                    }
+                    return new DuplicateMatch(pair.get(0), pair.get(1), score(first, second));
+                })
+                .filter(match -> match != null && match.getScore() >= threshold)
+                .sorted(Comparator.comparingDouble(DuplicateMatch::getScore).reversed())
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Score how likely two patients are the same person
+     * @return Score from 0 (different) to 1 (identical)
+     */
+    static double score(Patient first, Patient second) {
+        double score = 0.55 * jaroWinkler(normalizeName(first), normalizeName(second));
+        
+        String firstPhone = PatientBlockIndex.normalizePhone(first.getPhone());
+        if (!firstPhone.isEmpty() && firstPhone.equals(PatientBlockIndex.normalizePhone(second.getPhone()))) {
+            score += 0.2;
+        }
+        
+        String firstEmail = PatientBlockIndex.normalizeEmailLocalPart(first.getEmail());
+        if (!firstEmail.isEmpty() && firstEmail.equals(PatientBlockIndex.normalizeEmailLocalPart(second.getEmail()))) {
+            score += 0.15;
+        }
+        
+        if (Math.abs(first.getAge() - second.getAge()) <= 1) {
+            score += 0.05;
+        }
+        if (first.getGender() != null && first.getGender().equalsIgnoreCase(second.getGender())) {
+            score += 0.05;
+        }
+        return score;
+    }
+    
+    private static String normalizeName(Patient patient) {
+        return (patient.getFirstName() + " " + patient.getLastName()).trim().toLowerCase();
+    }
+    
+    /**
+     * Jaro-Winkler similarity of two strings
+     * @return Similarity from 0 to 1
+     */
+    static double jaroWinkler(String first, String second) {
+        if (first.equals(second)) {
+            return 1.0;
+        }
+        int window = Math.max(0, Math.max(first.length(), second.length()) / 2 - 1);
+        boolean[] firstMatched = new boolean[first.length()];
+        boolean[] secondMatched = new boolean[second.length()];
+        
+        int matches = 0;
+        for (int i = 0; i < first.length(); i++) {
+            int end = Math.min(i + window + 1, second.length());
+            for (int j = Math.max(0, i - window); j < end; j++) {
+                if (!secondMatched[j] && first.charAt(i) == second.charAt(j)) {
+                    firstMatched[i] = true;
+                    secondMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+        
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < first.length(); i++) {
+            if (firstMatched[i]) {
+                while (!secondMatched[j]) {
+                    j++;
+                }
+                if (first.charAt(i) != second.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        
+        double m = matches;
+        double jaro = (m / first.length() + m / second.length() + (m - transpositions / 2.0) / m) / 3.0;
+        
+        int prefix = 0;
+        while (prefix < 4 && prefix < first.length() && prefix < second.length() &&
+               first.charAt(prefix) == second.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1.0 - jaro);
+    }
+}
+
+/**
+ * Duplicate Match Class
+ */
+class DuplicateMatch {
+    private String patientId;
+    private String duplicateId;
+    private double score;
+    
+    public DuplicateMatch(String patientId, String duplicateId, double score) {
+        this.patientId = patientId;
+        this.duplicateId = duplicateId;
+        this.score = score;
+    }
+    
+    // Getters
+    public String getPatientId() { return patientId; }
+    public String getDuplicateId() { return duplicateId; }
+    public double getScore() { return score; }
+    
+    @Override
+    public String toString() {
+        return String.format("%s ~ %s (%.2f)", patientId, duplicateId, score);
+    }
+}
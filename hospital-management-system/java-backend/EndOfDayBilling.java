@@ -0,0 +1,229 @@
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+/**
+ * End Of Day Billing Class
+ * Turns completed appointments into invoices in one run. The appointments
+ * of a date range that are COMPLETED and have no invoice yet are priced by
+ * type and department, their invoices are built in parallel on the
+ * fork-join pool, and the batch is added to the billing manager in one
+ * step. Each invoice is tied to its appointment and gets the ID
+ * INV-appointmentId, so running the same range again bills nothing twice.
+ * Completed appointments are kept out of the appointment archive until
+ * they are billed, so a run always finds them among the live appointments;
+ * billing runs sharing both managers share that one archive hold.
+ */
+public class EndOfDayBilling {
+    private static final int SPLIT_THRESHOLD = 512;
+    private static final int PAYMENT_TERM_DAYS = 30;
+    
+    private AppointmentManager appointmentManager;
+    private BillingManager billingManager;
+    private AppointmentFeeSchedule feeSchedule;
+    
+    public EndOfDayBilling(AppointmentManager appointmentManager, BillingManager billingManager) {
+        this(appointmentManager, billingManager, new AppointmentFeeSchedule());
+    }
+    
+    public EndOfDayBilling(AppointmentManager appointmentManager, BillingManager billingManager,
+                           AppointmentFeeSchedule feeSchedule) {
+        this.appointmentManager = appointmentManager;
+        this.billingManager = billingManager;
+        this.feeSchedule = feeSchedule;
+        appointmentManager.addArchiveHold(new UnbilledHold(billingManager));
+    }
+
+    
+    /**
+     * Bill the completed, not yet billed appointments of a date range
+     * @param fromDate First date in yyyy-MM-dd format, inclusive
+     * @param toDate Last date in yyyy-MM-dd format, inclusive
+     * @return Result with the invoices created
+     */
+    public BillingRunResult run(String fromDate, String toDate) {
+        long startTime = System.nanoTime();
+        List<Appointment> unbilled = new ArrayList<>();
+        int completed = 0;
+        for (Appointment appointment : appointmentManager.getAppointmentsBetween(fromDate, toDate)) {
+            if (appointment.getStatus() == AppointmentStatus.COMPLETED) {
+                completed++;
+                if (!billingManager.isAppointmentBilled(appointment.getAppointmentId())) {
+                    unbilled.add(appointment);
+                }
+            }
+        }
+        
+        Invoice[] built = new Invoice[unbilled.size()];
+        ForkJoinPool.commonPool().invoke(new InvoiceBuildTask(unbilled, built, 0, built.length));
+        List<Invoice> added = billingManager.addInvoices(Arrays.asList(built));
+        
+        return new BillingRunResult(added, completed, System.nanoTime() - startTime);
+    }
+    
+    /**
+     * Build the invoice of a completed appointment
+     * @param appointment Completed appointment
+     * @return Pending invoice for the appointment
+     */
+    Invoice createInvoice(Appointment appointment) {
+        LocalDate date = appointment.getLocalDate();
+        BillingItem item = new BillingItem("I-" + appointment.getAppointmentId(),
+            appointment.getType() + " - " + appointment.getDepartment(), 1,
+            feeSchedule.getFee(appointment.getType(), appointment.getDepartment()));
+        return new Invoice("INV-" + appointment.getAppointmentId(), appointment.getPatientId(),
+            appointment.getPatientName(), appointment.getDepartment(), appointment.getAppointmentId(),
+            date.toString(), date.plusDays(PAYMENT_TERM_DAYS).toString(), Collections.singletonList(item));
+    }
+    
+    /**
+     * Builds the invoices of a slice of appointments, splitting large slices
+     * in half so the pool's workers share them
+     */
+    private class InvoiceBuildTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private List<Appointment> appointments;
+        private Invoice[] built;
+        private int from;
+        private int to;
+        
+        InvoiceBuildTask(List<Appointment> appointments, Invoice[] built, int from, int to) {
+            this.appointments = appointments;
+            this.built = built;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    built[i] = createInvoice(appointments.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new InvoiceBuildTask(appointments, built, from, middle),
+                new InvoiceBuildTask(appointments, built, middle, to));
+        }
+    }
+    
+    /**
+     * Archive hold on completed appointments the billing manager has not
+     * billed; equal for the same billing manager, so it is registered once
+     */
+    private static class UnbilledHold implements Predicate<Appointment> {
+        private BillingManager billingManager;
+        
+        UnbilledHold(BillingManager billingManager) {
+            this.billingManager = billingManager;
+        }
+        
+        @Override
+        public boolean test(Appointment appointment) {
+            return appointment.getStatus() == AppointmentStatus.COMPLETED &&
+                   !billingManager.isAppointmentBilled(appointment.getAppointmentId());
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof UnbilledHold && ((UnbilledHold) obj).billingManager == billingManager;
+        }
+        
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(billingManager);
+        }
+    }
+}
+
+/**
+ * Appointment Fee Schedule Class
+ * Price of an appointment: a base fee by appointment type, scaled by a
+ * department rate in basis points (10000 = 100%). Types and departments
+ * are matched case-insensitively; unknown ones use the default fee and
+ * rate.
+ */
+class AppointmentFeeSchedule {
+    private static final Money DEFAULT_FEE = Money.of(150.00);
+    private static final int DEFAULT_RATE_BASIS_POINTS = 10_000;
+    
+    private Map<String, Money> typeFees;
+    private Map<String, Integer> departmentRates;
+    
+    public AppointmentFeeSchedule() {
+        this.typeFees = new HashMap<>();
+        this.departmentRates = new HashMap<>();
+        setTypeFee("Consultation", Money.of(150.00));
+        setTypeFee("Follow-up", Money.of(75.00));
+        setTypeFee("Emergency", Money.of(400.00));
+        setTypeFee("Routine", Money.of(100.00));
+        setDepartmentRate("Cardiology", 13_000);
+        setDepartmentRate("Neurology", 14_000);
+        setDepartmentRate("Orthopedics", 12_000);
+        setDepartmentRate("Pediatrics", 9_000);
+    }
+    
+    public void setTypeFee(String type, Money fee) {
+        typeFees.put(type.trim().toLowerCase(), fee);
+    }
+    
+    public void setDepartmentRate(String department, int basisPoints) {
+        departmentRates.put(department.trim().toLowerCase(), basisPoints);
+    }
+    
+    /**
+     * Get the fee of an appointment
+     * @param type Appointment type, or null for the default fee
+     * @param department Department, or null for the default rate
+     * @return Fee, rounded half-even to a cent
+     */
+    public Money getFee(String type, String department) {
+        Money fee = type == null ? DEFAULT_FEE : typeFees.getOrDefault(type.trim().toLowerCase(), DEFAULT_FEE);
+        int rate = department == null ? DEFAULT_RATE_BASIS_POINTS :
+            departmentRates.getOrDefault(department.trim().toLowerCase(), DEFAULT_RATE_BASIS_POINTS);
+        return fee.percentage(rate);
+    }
+}
+
+/**
+ * Billing Run Result Class
+ */
+class BillingRunResult {
+    private List<Invoice> invoices;
+    private int completedAppointments;
+    private long elapsedNanos;
+    
+    public BillingRunResult(List<Invoice> invoices, int completedAppointments, long elapsedNanos) {
+        this.invoices = invoices;
+        this.completedAppointments = completedAppointments;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    // Getters
+    public List<Invoice> getInvoices() { return invoices; }
+    public int getCompletedAppointments() { return completedAppointments; }
+    public int getAlreadyBilled() { return completedAppointments - invoices.size(); }
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    public Money getTotalBilled() {
+        long total = 0;
+        for (Invoice invoice : invoices) {
+            total = Money.add(total, invoice.getTotal().getMinorUnits());
+        }
+        return Money.ofMinor(total);
+    }
+    
+    public double getInvoicesPerSecond() {
+        return elapsedNanos == 0 ? 0 : invoices.size() * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Billed %d of %d completed appointments, %d already billed, $%s (%.0f invoices/second)",
+            invoices.size(), completedAppointments, getAlreadyBilled(), getTotalBilled(), getInvoicesPerSecond());
+    }
+}
@@ -0,0 +1,210 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Entity Footprint Benchmark Class
+ * Runnable heap-footprint benchmark for the dictionary-shared entity
+ * attributes (see StringDictionary). For each entity type it builds many
+ * entities whose repetitive attribute values are distinct String copies,
+ * as produced by parsing input, and measures the retained heap per entity
+ * twice: with the real entity classes, which keep the dictionary's shared
+ * instance, and with plain mirrors that keep each copy, which is how the
+ * entities stored them before the dictionary.
+ *
+ * Usage: java EntityFootprintBenchmark [entitiesPerType]
+ */
+public class EntityFootprintBenchmark {
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+    private static final String[] INSURANCE = {"Blue Cross", "Aetna", "Medicare", "Cigna", "United"};
+    private static final String[] DEPARTMENTS = {"Cardiology", "Neurology", "Orthopedics", "Pediatrics"};
+    private static final String[] DOCTORS = {"Dr. Smith", "Dr. Johnson", "Dr. Brown", "Dr. Wilson"};
+    private static final String[] TYPES = {"Consultation", "Follow-up", "Emergency", "Routine"};
+    private static final String[] CATEGORIES = {"Medication", "Equipment", "Supplies", "Surgical"};
+    private static final String[] SUPPLIERS = {"MedSupply Co", "HealthCorp", "PharmaDist", "CareGoods"};
+    
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        LocalDate day = LocalDate.of(2026, 1, 1);
+        
+        System.out.printf("%-14s %16s %16s%n", "Entity", "Plain bytes", "Shared bytes");
+        report("Patient",
+            measure(count, i -> new PlainPatient(i)),
+            measure(count, i -> new Patient("P" + i, "First" + i, "Last" + i, 20 + i % 60,
+                copy(GENDERS, i), "555-" + i, "p" + i + "@email.com", "O+", copy(INSURANCE, i),
+                i + " Main St", "Contact " + i)));
+        report("Appointment",
+            measure(count, i -> new PlainAppointment(i, day)),
+            measure(count, i -> new Appointment("A" + i, "P" + i, "Patient " + i, "D00" + (i % 4),
+                copy(DOCTORS, i), copy(DEPARTMENTS, i), day.plusDays(i % 365).toString(), "09:00",
+                copy(TYPES, i), "Notes " + i)));
+        report("StaffMember",
+            measure(count, i -> new PlainStaffMember(i)),
+            measure(count, i -> new StaffMember("S" + i, "First" + i, "Last" + i, StaffRole.NURSE,
+                copy(DEPARTMENTS, i), "555-" + i, "s" + i + "@email.com", "2024-01-01", 50_000)));
+        report("InventoryItem",
+            measure(count, i -> new PlainInventoryItem(i)),
+            measure(count, i -> new InventoryItem("I" + i, "Item " + i, copy(CATEGORIES, i), 10, 5, 100,
+                1.5, copy(SUPPLIERS, i), "2027-01-01")));
+    }
+    
+    /**
+     * Retained heap per entity of a freshly built array of entities
+     */
+    private static double measure(int count, IntFunction<Object> factory) {
+        Object[] entities = new Object[count];
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            entities[i] = factory.apply(i);
+        }
+        long after = usedHeap();
+        double perEntity = (double) (after - before) / count;
+        // Keep the entities reachable until measured
+        if (entities[count - 1] == null) {
+            throw new IllegalStateException();
+        }
+        return perEntity;
+    }
+    
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+    
+    private static void report(String entity, double plain, double shared) {
+        System.out.printf("%-14s %16.0f %16.0f%n", entity, plain, shared);
+    }
+    
+    /**
+     * A distinct copy of one of the values, like a freshly parsed field
+     */
+    private static String copy(String[] values, int i) {
+        return new String(values[i % values.length].toCharArray());
+    }
+    
+    // Entity shapes before the dictionary: the same fields, each keeping its own copy
+    
+    private static class PlainPatient {
+        private String patientId;
+        private String firstName;
+        private String lastName;
+        private int age;
+        private String gender;
+        private String phone;
+        private String email;
+        private BloodGroup bloodGroup;
+        private String insurance;
+        private String address;
+        private String emergencyContact;
+        private PatientStatus status;
+        private String registrationDate;
+        private Object changeListener;
+        
+        PlainPatient(int i) {
+            this.patientId = "P" + i;
+            this.firstName = "First" + i;
+            this.lastName = "Last" + i;
+            this.age = 20 + i % 60;
+            this.gender = copy(GENDERS, i);
+            this.phone = "555-" + i;
+            this.email = "p" + i + "@email.com";
+            this.bloodGroup = BloodGroup.fromString("O+");
+            this.insurance = copy(INSURANCE, i);
+            this.address = i + " Main St";
+            this.emergencyContact = "Contact " + i;
+            this.status = PatientStatus.ACTIVE;
+            this.registrationDate = LocalDate.now().toString();
+        }
+    }
+    
+    private static class PlainAppointment {
+        private String appointmentId;
+        private String patientId;
+        private String patientName;
+        private String doctorId;
+        private String doctorName;
+        private String department;
+        private LocalDate date;
+        private LocalTime time;
+        private String type;
+        private String notes;
+        private AppointmentStatus status;
+        private String createdDate;
+        
+        PlainAppointment(int i, LocalDate day) {
+            this.appointmentId = "A" + i;
+            this.patientId = "P" + i;
+            this.patientName = "Patient " + i;
+            this.doctorId = "D00" + (i % 4);
+            this.doctorName = copy(DOCTORS, i);
+            this.department = copy(DEPARTMENTS, i);
+            this.date = LocalDate.parse(day.plusDays(i % 365).toString());
+            this.time = LocalTime.of(9, 0);
+            this.type = copy(TYPES, i);
+            this.notes = "Notes " + i;
+            this.status = AppointmentStatus.SCHEDULED;
+            this.createdDate = LocalDate.now().toString();
+        }
+    }
+    
+    private static class PlainStaffMember {
+        private String staffId;
+        private String firstName;
+        private String lastName;
+        private StaffRole role;
+        private String department;
+        private String phone;
+        private String email;
+        private String hireDate;
+        private double salary;
+        private StaffStatus status;
+        private List<String> schedule;
+        
+        PlainStaffMember(int i) {
+            this.staffId = "S" + i;
+            this.firstName = "First" + i;
+            this.lastName = "Last" + i;
+            this.role = StaffRole.NURSE;
+            this.department = copy(DEPARTMENTS, i);
+            this.phone = "555-" + i;
+            this.email = "s" + i + "@email.com";
+            this.hireDate = "2024-01-01";
+            this.salary = 50_000;
+            this.status = StaffStatus.ACTIVE;
+            this.schedule = Arrays.asList("Monday", "Tuesday", "Wednesday", "Thursday", "Friday");
+        }
+    }
+    
+    private static class PlainInventoryItem {
+        private String itemId;
+        private String name;
+        private String category;
+        private int currentStock;
+        private int minStock;
+        private int maxStock;
+        private double unitPrice;
+        private String supplier;
+        private String expiryDate;
+        private Object status;
+        
+        PlainInventoryItem(int i) {
+            this.itemId = "I" + i;
+            this.name = "Item " + i;
+            this.category = copy(CATEGORIES, i);
+            this.currentStock = 10;
+            this.minStock = 5;
+            this.maxStock = 100;
+            this.unitPrice = 1.5;
+            this.supplier = copy(SUPPLIERS, i);
+            this.expiryDate = "2027-01-01";
+        }
+    }
+}
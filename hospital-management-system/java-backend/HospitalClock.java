@@ -0,0 +1,73 @@
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Hospital Clock Class
+ * Shared source of the current date and time. The current date is cached
+ * until the next midnight, so classifying many records as today, upcoming
+ * or past costs one clock read per record and no date computation.
+ * The clock can be replaced, e.g. to replay a past day.
+ */
+class HospitalClock {
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    private static volatile CachedDay cachedDay;
+    
+    private HospitalClock() {
+    }
+    
+    /**
+     * Get the current date
+     * @return Today's date in the clock's time zone
+     */
+    public static LocalDate today() {
+        Clock current = clock;
+        long millis = current.millis();
+        CachedDay day = cachedDay;
+        if (day == null || day.clock != current || millis < day.startMillis || millis >= day.endMillis) {
+            day = new CachedDay(current, millis);
+            cachedDay = day;
+        }
+        return day.date;
+    }
+    
+    /**
+     * Get the current date and time
+     * @return Current date and time in the clock's time zone
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+    
+    public static Clock getClock() {
+        return clock;
+    }
+    
+    /**
+     * Replace the clock used by the whole system
+     * @param newClock Clock to use from now on
+     */
+    public static void setClock(Clock newClock) {
+        clock = newClock;
+    }
+    
+    /**
+     * A date together with the instants at which it starts and ends
+     */
+    private static class CachedDay {
+        private final Clock clock;
+        private final LocalDate date;
+        private final long startMillis;
+        private final long endMillis;
+        
+        CachedDay(Clock clock, long millis) {
+            ZoneId zone = clock.getZone();
+            this.clock = clock;
+            this.date = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+            this.startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+}
@@ -1,4 +1,7 @@
 import java.util.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
@@ -12,6 +15,8 @@ public class HospitalManagementSystem {
     private BillingManager billingManager;
     private InventoryManager inventoryManager;
     private StaffManager staffManager;
+    private PatientTimeline patientTimeline;
+    private EndOfDayBilling endOfDayBilling;
     private Scanner scanner;
     
     public HospitalManagementSystem() {
@@ -20,6 +25,8 @@ public class HospitalManagementSystem {
         this.billingManager = new BillingManager();
         this.inventoryManager = new InventoryManager();
         this.staffManager = new StaffManager();
+        this.patientTimeline = new PatientTimeline(appointmentManager, billingManager);
+        this.endOfDayBilling = new EndOfDayBilling(appointmentManager, billingManager);
         this.scanner = new Scanner(System.in);
         
         System.out.println("Hospital Management System initialized successfully!");
@@ -84,6 +91,7 @@ public class HospitalManagementSystem {
         System.out.println("2. View All Patients");
         System.out.println("3. Search Patient");
         System.out.println("4. Update Patient");
+        System.out.println("5. Bulk Import Patients");
         System.out.print("Select option: ");
         
         int choice = scanner.nextInt();
@@ -102,6 +110,9 @@ public class HospitalManagementSystem {
             case 4:
                 updatePatient();
                 break;
+            case 5:
+                importPatients();
+                break;
         }
     }
     
@@ -135,6 +146,12 @@ public class HospitalManagementSystem {
             bloodGroup, insurance, address, emergencyContact
         );
         
+        for (DuplicateMatch match : new DuplicatePatientDetector(patientManager).findDuplicates(patient)) {
+            Patient existing = patientManager.getPatient(match.getDuplicateId());
+            System.out.printf("Warning: possible duplicate of %s - %s (score %.2f)%n",
+                existing.getPatientId(), existing.getFullName(), match.getScore());
+        }
+        
         patientManager.addPatient(patient);
         System.out.println("Patient registered successfully! ID: " + patient.getPatientId());
     }
@@ -199,6 +216,22 @@ public class HospitalManagementSystem {
         }
     }
     
+    private void importPatients() {
+        System.out.print("CSV or NDJSON file to import: ");
+        Path source = Paths.get(scanner.nextLine().trim());
+        Path rejectsFile = Paths.get(source + ".rejects");
+        
+        try {
+            PatientImportResult result = new PatientImporter(patientManager).importFile(source, rejectsFile);
+            System.out.println(result);
+            if (result.getRejected() > 0) {
+                System.out.println("Rejected rows written to: " + rejectsFile);
+            }
+        } catch (IOException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        }
+    }
+    
     private void handleAppointmentManagement() {
         System.out.println("\n=== APPOINTMENT MANAGEMENT ===");
         System.out.println("1. Schedule New Appointment");
@@ -248,14 +281,23 @@ public class HospitalManagementSystem {
         System.out.print("Notes: ");
         String notes = scanner.nextLine();
         
-        Appointment appointment = new Appointment(
-            appointmentManager.generateAppointmentId(),
-            patientId, patient.getFullName(), doctorId, doctorName,
-            department, date, time, type, notes
-        );
+        Appointment appointment;
+        try {
+            appointment = new Appointment(
+                appointmentManager.generateAppointmentId(),
+                patientId, patient.getFullName(), doctorId, doctorName,
+                department, date, time, type, notes
+            );
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
         
-        appointmentManager.addAppointment(appointment);
-        System.out.println("Appointment scheduled successfully! ID: " + appointment.getAppointmentId());
+        if (appointmentManager.bookAppointment(appointment).isBooked()) {
+            System.out.println("Appointment scheduled successfully! ID: " + appointment.getAppointmentId());
+        } else {
+            System.out.println("That time slot is already booked for the doctor.");
+        }
     }
     
     private void displayAllAppointments() {
@@ -315,7 +357,14 @@ public class HospitalManagementSystem {
     
     private void handleHealthRecords() {
         System.out.println("\n=== ELECTRONIC HEALTH RECORDS ===");
-        System.out.println("Feature coming soon...");
+        System.out.print("Enter Patient ID: ");
+        String patientId = scanner.nextLine();
+        
+        if (patientManager.getPatient(patientId) == null) {
+            System.out.println("Patient not found!");
+            return;
+        }
+        patientTimeline.displayTimeline(patientId);
     }
     
     private void handleBillingManagement() {
@@ -323,6 +372,7 @@ public class HospitalManagementSystem {
         System.out.println("1. Generate Invoice");
         System.out.println("2. View All Invoices");
         System.out.println("3. Update Payment Status");
+        System.out.println("4. Bill Completed Appointments");
         System.out.print("Select option: ");
         
         int choice = scanner.nextInt();
@@ -332,11 +382,29 @@ public class HospitalManagementSystem {
             case 2:
                 displayAllInvoices();
                 break;
+            case 4:
+                runEndOfDayBilling();
+                break;
             default:
                 System.out.println("Feature coming soon...");
         }
     }
     
+    private void runEndOfDayBilling() {
+        String today = HospitalClock.today().toString();
+        System.out.print("From date (yyyy-MM-dd, blank for today): ");
+        String fromDate = scanner.nextLine().trim();
+        System.out.print("To date (yyyy-MM-dd, blank for today): ");
+        String toDate = scanner.nextLine().trim();
+        try {
+            BillingRunResult result = endOfDayBilling.run(fromDate.isEmpty() ? today : fromDate,
+                toDate.isEmpty() ? today : toDate);
+            System.out.println(result);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid date: " + e.getMessage());
+        }
+    }
+    
     private void displayAllInvoices() {
         System.out.println("\n--- All Invoices ---");
         List<Invoice> invoices = billingManager.getAllInvoices();
@@ -346,7 +414,7 @@ public class HospitalManagementSystem {
         System.out.println("-----------------------------------------------------------");
         
         for (Invoice invoice : invoices) {
-            System.out.printf("%-10s %-15s %-12s $%-9.2f %-12s%n",
+            System.out.printf("%-10s %-15s %-12s $%-9s %-12s%n",
                 invoice.getInvoiceId(),
                 invoice.getPatientName(),
                 invoice.getDate(),
@@ -483,8 +551,8 @@ public class HospitalManagementSystem {
         System.out.println("Today's Appointments: " + appointmentManager.getTodaysAppointmentCount());
         System.out.println("Active Staff: " + staffManager.getActiveStaffCount());
         System.out.println("Low Stock Items: " + inventoryManager.getLowStockItems().size());
-        System.out.println("Total Revenue: $" + String.format("%.2f", billingManager.getTotalRevenue()));
-        System.out.println("Pending Bills: $" + String.format("%.2f", billingManager.getPendingAmount()));
+        System.out.println("Total Revenue: $" + billingManager.getTotalRevenue());
+        System.out.println("Pending Bills: $" + billingManager.getPendingAmount());
     }
     
     public static void main(String[] args) {
@@ -10,10 +10,16 @@ import java.util.stream.Collectors;
 public class InventoryManager {
     private Map<String, InventoryItem> inventory;
     private int itemCounter;
+    private Map<PageSortKey, PagedIndex<InventoryItem>> pageIndexes;
     
     public InventoryManager() {
         this.inventory = new HashMap<>();
         this.itemCounter = 6; // Starting from IT006
+        this.pageIndexes = new EnumMap<>(PageSortKey.class);
+        pageIndexes.put(PageSortKey.ID, new PagedIndex<>(PageSortKey.ID,
+            InventoryItem::getItemId, InventoryItem::getItemId, inventory::get));
+        pageIndexes.put(PageSortKey.NAME, new PagedIndex<>(PageSortKey.NAME,
+            InventoryItem::getItemId, item -> item.getName().toLowerCase(), inventory::get));
         initializeSampleData();
     }
     
@@ -39,6 +45,9 @@ public class InventoryManager {
      */
     public void addItem(InventoryItem item) {
         inventory.put(item.getItemId(), item);
+        for (PagedIndex<InventoryItem> pageIndex : pageIndexes.values()) {
+            pageIndex.put(item);
+        }
         System.out.println("Inventory item added: " + item.getItemId() + " - " + item.getName());
     }
     
@@ -50,6 +59,21 @@ public class InventoryManager {
         return new ArrayList<>(inventory.values());
     }
     
+    /**
+     * Get one page of items
+     * @param sortKey Order to list items in
+     * @param pageSize Maximum number of items on the page
+     * @param continuationToken Token from the previous page, or null for the first page
+     * @return Page of items with the token for the next page
+     */
+    public Page<InventoryItem> getItemsPage(PageSortKey sortKey, int pageSize, String continuationToken) {
+        PagedIndex<InventoryItem> index = pageIndexes.get(sortKey);
+        if (index == null) {
+            throw new IllegalArgumentException("Unsupported sort key for items: " + sortKey);
+        }
+        return index.page(pageSize, continuationToken);
+    }
+    
     /**
      * Get specific item by ID
      * @param itemId Item ID
@@ -197,12 +221,12 @@ class InventoryItem {
                         int minStock, int maxStock, double unitPrice, String supplier, String expiryDate) {
         this.itemId = itemId;
         this.name = name;
-        this.category = category;
+        this.category = StringDictionary.CATEGORIES.canonicalize(category);
         this.currentStock = currentStock;
         this.minStock = minStock;
         this.maxStock = maxStock;
         this.unitPrice = unitPrice;
-        this.supplier = supplier;
+        this.supplier = StringDictionary.SUPPLIERS.canonicalize(supplier);
         this.expiryDate = expiryDate;
         this.status = calculateStatus();
     }
@@ -242,7 +266,7 @@ class InventoryItem {
     public void setMinStock(int minStock) { this.minStock = minStock; }
     public void setMaxStock(int maxStock) { this.maxStock = maxStock; }
     public void setUnitPrice(double unitPrice) { this.unitPrice = unitPrice; }
-    public void setSupplier(String supplier) { this.supplier = supplier; }
+    public void setSupplier(String supplier) { this.supplier = StringDictionary.SUPPLIERS.canonicalize(supplier); }
     public void setExpiryDate(String expiryDate) { this.expiryDate = expiryDate; }
 }
 
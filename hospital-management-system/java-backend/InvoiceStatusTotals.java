@@ -0,0 +1,92 @@
+import java.util.*;
+
+/**
+ * Invoice Status Totals Class
+ * Incrementally maintained number of invoices and sum of their totals per
+ * PaymentStatus ordinal, in cents. A count and its sum change together
+ * under the object's lock, so a reader never sees one without the other,
+ * and every read is O(1).
+ */
+class InvoiceStatusTotals {
+    private int[] counts;
+    private long[] sums;
+    
+    public InvoiceStatusTotals() {
+        this.counts = new int[PaymentStatus.values().length];
+        this.sums = new long[PaymentStatus.values().length];
+    }
+    
+    /**
+     * Recompute totals from scratch
+     * @param invoices All invoices
+     * @return Totals of the invoices
+     */
+    public static InvoiceStatusTotals recount(Collection<Invoice> invoices) {
+        InvoiceStatusTotals totals = new InvoiceStatusTotals();
+        for (Invoice invoice : invoices) {
+            totals.add(invoice.getStatus(), invoice.getTotal());
+        }
+        return totals;
+    }
+    
+    /**
+     * Count an invoice with a status
+     * @param status Status of the invoice being stored
+     * @param total Invoice total
+     */
+    public synchronized void add(PaymentStatus status, Money total) {
+        counts[status.ordinal()]++;
+        sums[status.ordinal()] = Money.add(sums[status.ordinal()], total.getMinorUnits());
+    }
+    
+    /**
+     * Stop counting an invoice with a status
+     * @param status Status of the invoice being dropped
+     * @param total Invoice total
+     */
+    public synchronized void remove(PaymentStatus status, Money total) {
+        counts[status.ordinal()]--;
+        sums[status.ordinal()] = Money.add(sums[status.ordinal()], -total.getMinorUnits());
+    }
+    
+    /**
+     * Move an invoice from one status to another
+     * @param from Previous status
+     * @param to New status
+     * @param total Invoice total
+     */
+    public synchronized void move(PaymentStatus from, PaymentStatus to, Money total) {
+        if (from != to) {
+            remove(from, total);
+            add(to, total);
+        }
+    }
+    
+    public synchronized int getCount(PaymentStatus status) {
+        return counts[status.ordinal()];
+    }
+    
+    public synchronized Money getSum(PaymentStatus status) {
+        return Money.ofMinor(sums[status.ordinal()]);
+    }
+    
+    /**
+     * Compare with other totals
+     * @param expected Totals to compare with, e.g. from recount
+     * @return One line per status whose count or sum differs, empty if none
+     */
+    public List<String> diff(InvoiceStatusTotals expected) {
+        List<String> differences = new ArrayList<>();
+        for (PaymentStatus status : PaymentStatus.values()) {
+            int count = getCount(status);
+            Money sum = getSum(status);
+            int expectedCount = expected.getCount(status);
+            Money expectedSum = expected.getSum(status);
+            if (count != expectedCount || !sum.equals(expectedSum)) {
+                differences.add(status + ": " + count + " invoices / $" + sum +
+                    ", expected " + expectedCount + " invoices / $" + expectedSum);
+            }
+        }
+        return differences;
+    }
+}
@@ -0,0 +1,61 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Mapped Patient Manager Class
+ * Patient manager whose records live in a memory-mapped file rather than on
+ * the Java heap. Patients returned by it are views decoded on demand and
+ * shared by all callers while in use; changes made through a view's setters
+ * are written back to the file.
+ * By default the heap holds only the store's ID to offset index, the views
+ * in use and the demographic counts: searches, status and blood group
+ * filters, duplicate candidates and pages scan the file instead of keeping
+ * per-patient index entries. Opening with maintained indexes trades that
+ * heap back for indexed queries; those indexes are not persisted and are
+ * rebuilt from the file when first needed.
+ */
+public class MappedPatientManager extends PatientManager implements Closeable {
+    private MappedPatientStore store;
+    
+    /**
+     * Open or create a patient store file without on-heap patient indexes
+     * @param file Store file; a new file is seeded with the sample patients
+     * @throws IOException if the file cannot be opened or is not a patient store
+     */
+    public MappedPatientManager(Path file) throws IOException {
+        this(file, false);
+    }
+    
+    /**
+     * Open or create a patient store file
+     * @param file Store file; a new file is seeded with the sample patients
+     * @param maintainIndexes Whether to keep the search, attribute, block and page indexes on heap
+     * @throws IOException if the file cannot be opened or is not a patient store
+     */
+    public MappedPatientManager(Path file, boolean maintainIndexes) throws IOException {
+        this(new MappedPatientStore(file), maintainIndexes);
+    }
+    
+    private MappedPatientManager(MappedPatientStore store, boolean maintainIndexes) {
+        super(store, maintainIndexes);
+        this.store = store;
+    }
+    
+    /**
+     * Rewrite the store file without superseded and removed records now,
+     * rather than when the store next finds them taking up half the file
+     * @throws IOException if the compacted file cannot be written
+     */
+    public void compact() throws IOException {
+        store.compact();
+    }
+    
+    /**
+     * Flush the store to disk and close it
+     */
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+}
@@ -0,0 +1,388 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Mapped Patient Store Class
+ * Patient storage backed by a memory-mapped file instead of the Java heap.
+ * Records are appended in a compact binary layout. On heap the store keeps
+ * only an ID to offset index and weak references to the Patient views that
+ * callers currently hold: get() decodes a view on demand and returns the
+ * same view for as long as it is in use, so changes made through it by
+ * different callers are not lost by writing back stale copies.
+ * Updating a patient appends a new record and marks the old one deleted.
+ * compact() rewrites the file without deleted records, and runs by itself
+ * once deleted records take up more than half of a file over 1 MB.
+ * Blood group and status are stored as their display names, so reordering
+ * the enums does not change what a file reads back. Files of version 1,
+ * which stored enum ordinals, are rewritten in the current format on open.
+ * All methods are synchronized. The file is limited to 2 GB.
+ */
+class MappedPatientStore extends AbstractMap<String, Patient> implements Closeable {
+    private static final int MAGIC = 0x484D5350; // "HMSP"
+    private static final int VERSION = 2;
+    private static final int ORDINAL_VERSION = 1;
+    private static final int HEADER_SIZE = 12; // magic, version, end of data
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 0;
+    private static final int COMPACTION_MIN_BYTES = 1 << 20;
+    
+    private Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int version;
+    private int end;
+    private int deletedBytes;
+    private Map<String, Integer> offsets;
+    private Map<String, PatientView> views;
+    private ReferenceQueue<Patient> collectedViews;
+    
+    /**
+     * Open or create a store file
+     * @param file Store file
+     * @throws IOException if the file cannot be opened or is not a patient store
+     */
+    public MappedPatientStore(Path file) throws IOException {
+        this.file = file;
+        this.offsets = new HashMap<>();
+        this.views = new HashMap<>();
+        this.collectedViews = new ReferenceQueue<>();
+        open();
+    }
+    
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Patient store larger than 2 GB: " + file);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, INITIAL_CAPACITY));
+        
+        if (size == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            version = VERSION;
+            end = HEADER_SIZE;
+            buffer.putInt(8, end);
+            return;
+        }
+        version = buffer.getInt(4);
+        if (buffer.getInt(0) != MAGIC || (version != VERSION && version != ORDINAL_VERSION)) {
+            throw new IOException("Not a patient store: " + file);
+        }
+        
+        // Rebuild the ID index by walking record headers; only IDs are decoded
+        end = buffer.getInt(8);
+        deletedBytes = 0;
+        offsets.clear();
+        views.clear();
+        for (int position = HEADER_SIZE; position < end; position += 4 + buffer.getInt(position)) {
+            if (buffer.get(position + 4) == LIVE) {
+                offsets.put(readStringAt(buffer, position + 5), position);
+            } else {
+                deletedBytes += 4 + buffer.getInt(position);
+            }
+        }
+        if (version == ORDINAL_VERSION) {
+            compact();
+        }
+    }
+    
+    @Override
+    public synchronized Patient get(Object patientId) {
+        Integer offset = offsets.get(patientId);
+        if (offset == null) {
+            return null;
+        }
+        Patient view = currentView(patientId, offset);
+        if (view == null) {
+            view = decode(offset);
+            cacheView((String) patientId, view, offset);
+        }
+        return view;
+    }
+    
+    @Override
+    public synchronized boolean containsKey(Object patientId) {
+        return offsets.containsKey(patientId);
+    }
+    
+    @Override
+    public synchronized Patient put(String patientId, Patient patient) {
+        Patient previous = remove(patientId);
+        int offset = append(patientId, patient);
+        offsets.put(patientId, offset);
+        cacheView(patientId, patient, offset);
+        if (deletedBytes > COMPACTION_MIN_BYTES && deletedBytes > end / 2) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // The file is left as it was; the next change tries again
+                System.out.println("Patient store compaction failed: " + e.getMessage());
+            }
+        }
+        return previous;
+    }
+    
+    @Override
+    public synchronized Patient replace(String patientId, Patient patient) {
+        return offsets.containsKey(patientId) ? put(patientId, patient) : null;
+    }
+    
+    @Override
+    public synchronized Patient remove(Object patientId) {
+        Integer offset = offsets.remove(patientId);
+        if (offset == null) {
+            return null;
+        }
+        Patient previous = currentView(patientId, offset);
+        if (previous == null) {
+            previous = decode(offset);
+        }
+        views.remove(patientId);
+        buffer.put(offset + 4, DELETED);
+        deletedBytes += 4 + buffer.getInt(offset);
+        return previous;
+    }
+    
+    @Override
+    public synchronized int size() {
+        return offsets.size();
+    }
+    
+    @Override
+    public synchronized Set<String> keySet() {
+        return Collections.unmodifiableSet(new HashSet<>(offsets.keySet()));
+    }
+    
+    /**
+     * Entries decode their patient lazily from a snapshot of the ID index
+     */
+    @Override
+    public synchronized Set<Map.Entry<String, Patient>> entrySet() {
+        List<String> patientIds = new ArrayList<>(offsets.keySet());
+        return new AbstractSet<Map.Entry<String, Patient>>() {
+            @Override
+            public Iterator<Map.Entry<String, Patient>> iterator() {
+                Iterator<String> ids = patientIds.iterator();
+                return new Iterator<Map.Entry<String, Patient>>() {
+                    private String current;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return ids.hasNext();
+                    }
+                    
+                    @Override
+                    public Map.Entry<String, Patient> next() {
+                        current = ids.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(current, get(current));
+                    }
+                    
+                    @Override
+                    public void remove() {
+                        MappedPatientStore.this.remove(current);
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return patientIds.size();
+            }
+        };
+    }
+    
+    /**
+     * Rewrite the store without deleted records
+     * @throws IOException if the compacted file cannot be written
+     */
+    public synchronized void compact() throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(compacted);
+        try (MappedPatientStore target = new MappedPatientStore(compacted)) {
+            for (Map.Entry<String, Integer> entry : offsets.entrySet()) {
+                target.put(entry.getKey(), decode(entry.getValue()));
+            }
+        }
+        
+        // Views in use stay the views of their patients at the new offsets
+        Map<String, Patient> inUse = new HashMap<>();
+        for (PatientView view : views.values()) {
+            Patient patient = view.get();
+            if (patient != null && Objects.equals(offsets.get(view.patientId), view.offset)) {
+                inUse.put(view.patientId, patient);
+            }
+        }
+        channel.close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+        for (Map.Entry<String, Patient> entry : inUse.entrySet()) {
+            cacheView(entry.getKey(), entry.getValue(), offsets.get(entry.getKey()));
+        }
+    }
+    
+    /**
+     * Flush changes to disk and close the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+    
+    /**
+     * The view in use for a patient, if it still reflects the record at the offset
+     */
+    private Patient currentView(Object patientId, int offset) {
+        purgeCollectedViews();
+        PatientView view = views.get(patientId);
+        return view != null && view.offset == offset ? view.get() : null;
+    }
+    
+    private void cacheView(String patientId, Patient patient, int offset) {
+        purgeCollectedViews();
+        views.put(patientId, new PatientView(patientId, patient, offset, collectedViews));
+    }
+    
+    private void purgeCollectedViews() {
+        for (Object collected; (collected = collectedViews.poll()) != null; ) {
+            PatientView view = (PatientView) collected;
+            views.remove(view.patientId, view);
+        }
+    }
+    
+    private int append(String patientId, Patient patient) {
+        byte[][] strings = {
+            bytes(patientId), bytes(patient.getFirstName()), bytes(patient.getLastName()),
+            bytes(patient.getGender()), bytes(patient.getPhone()), bytes(patient.getEmail()),
+            bytes(patient.getBloodGroup()), bytes(patient.getInsurance()), bytes(patient.getAddress()),
+            bytes(patient.getEmergencyContact()), bytes(patient.getStatus()), bytes(patient.getRegistrationDate())
+        };
+        int length = 1 + 4; // state, age
+        for (byte[] value : strings) {
+            length += 2 + (value == null ? 0 : value.length);
+        }
+        ensureCapacity(end + 4 + length);
+        
+        int offset = end;
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset);
+        record.putInt(length);
+        record.put(LIVE);
+        for (int i = 0; i < 3; i++) {
+            putString(record, strings[i]);
+        }
+        record.putInt(patient.getAge());
+        for (int i = 3; i < strings.length; i++) {
+            putString(record, strings[i]);
+        }
+        
+        end = record.position();
+        buffer.putInt(8, end);
+        return offset;
+    }
+    
+    private Patient decode(int offset) {
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + 5);
+        String patientId = readString(record);
+        String firstName = readString(record);
+        String lastName = readString(record);
+        int age = record.getInt();
+        String gender = readString(record);
+        String phone = readString(record);
+        String email = readString(record);
+        String bloodGroup = version == ORDINAL_VERSION ?
+            BloodGroup.values()[record.get()].getDisplayName() : readString(record);
+        String insurance = readString(record);
+        String address = readString(record);
+        String emergencyContact = readString(record);
+        String status = version == ORDINAL_VERSION ?
+            PatientStatus.values()[record.get()].getDisplayName() : readString(record);
+        String registrationDate = readString(record);
+        
+        Patient patient = new Patient(patientId, firstName, lastName, age, gender, phone, email,
+            bloodGroup, insurance, address, emergencyContact);
+        patient.setStatus(status);
+        patient.setRegistrationDate(registrationDate);
+        return patient;
+    }
+    
+    private void ensureCapacity(long required) {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Patient store cannot grow beyond 2 GB: " + file);
+        }
+        long capacity = Math.min(Integer.MAX_VALUE, Math.max(required, 2L * buffer.capacity()));
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot grow patient store: " + file, e);
+        }
+    }
+    
+    private static byte[] bytes(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Patient field too long for the store: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+    
+    private static void putString(ByteBuffer record, byte[] value) {
+        if (value == null) {
+            record.putShort((short) -1);
+        } else {
+            record.putShort((short) value.length);
+            record.put(value);
+        }
+    }
+    
+    private static String readString(ByteBuffer record) {
+        short length = record.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        record.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+    
+    private static String readStringAt(ByteBuffer source, int position) {
+        ByteBuffer record = source.duplicate();
+        record.position(position);
+        return readString(record);
+    }
+    
+    /**
+     * Weak reference to a patient view, tagged with the offset of the record it reflects
+     */
+    private static class PatientView extends WeakReference<Patient> {
+        private final String patientId;
+        private final int offset;
+        
+        PatientView(String patientId, Patient patient, int offset, ReferenceQueue<Patient> queue) {
+            super(patient, queue);
+            this.patientId = patientId;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money Class
+ * An exact amount of money stored as a whole number of minor units (cents).
+ * Sums and products are plain long arithmetic with overflow checks, so
+ * totals over millions of invoices do not drift the way double sums do and
+ * cost no BigDecimal allocations. Rounding (tax, parsing) is half-even
+ * (banker's rounding), which does not bias large totals upwards.
+ * Aggregation loops use the static long methods, which allocate nothing,
+ * and wrap the result once.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+    
+    private static final int SCALE = 2;
+    private static final long MINOR_PER_MAJOR = 100;
+    private static final long BASIS_POINTS = 10_000;
+    
+    private final long minorUnits;
+    
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+    
+    /**
+     * Create an amount from minor units
+     * @param minorUnits Amount in cents
+     * @return Money
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+    
+    /**
+     * Create an amount from a decimal value, rounded half-even to cents
+     * @param amount Amount, e.g. 150.00
+     * @return Money
+     * @throws ArithmeticException if the amount does not fit in a long of cents
+     */
+    public static Money of(double amount) {
+        return toMinor(BigDecimal.valueOf(amount));
+    }
+    
+    /**
+     * Parse an amount such as "1250.5" or "-3.125", rounded half-even to cents
+     * @param text Decimal text
+     * @return Money
+     * @throws NumberFormatException if the text is not a decimal number
+     * @throws ArithmeticException if the amount does not fit in a long of cents
+     */
+    public static Money parse(String text) {
+        return toMinor(new BigDecimal(text.trim()));
+    }
+    
+    private static Money toMinor(BigDecimal amount) {
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_EVEN).movePointRight(SCALE).longValueExact());
+    }
+    
+    /**
+     * Add two amounts in minor units
+     * @param first Amount in cents
+     * @param second Amount in cents
+     * @return Sum in cents
+     * @throws ArithmeticException on overflow
+     */
+    public static long add(long first, long second) {
+        return Math.addExact(first, second);
+    }
+    
+    /**
+     * Multiply an amount in minor units by a quantity
+     * @param minorUnits Amount in cents
+     * @param quantity Quantity
+     * @return Product in cents
+     * @throws ArithmeticException on overflow
+     */
+    public static long multiply(long minorUnits, long quantity) {
+        return Math.multiplyExact(minorUnits, quantity);
+    }
+    
+    /**
+     * Apply a rate to an amount in minor units, rounding half-even to a cent
+     * @param minorUnits Amount in cents
+     * @param basisPoints Rate in hundredths of a percent, e.g. 800 for 8%
+     * @return Rounded amount in cents
+     * @throws ArithmeticException on overflow
+     */
+    public static long applyRate(long minorUnits, int basisPoints) {
+        long product = Math.multiplyExact(minorUnits, basisPoints);
+        long quotient = product / BASIS_POINTS;
+        long twiceRemainder = Math.abs(product % BASIS_POINTS) * 2;
+        if (twiceRemainder > BASIS_POINTS || (twiceRemainder == BASIS_POINTS && (quotient & 1) != 0)) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+    
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+    
+    public Money plus(Money other) {
+        return ofMinor(add(minorUnits, other.minorUnits));
+    }
+    
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+    
+    public Money times(long quantity) {
+        return ofMinor(multiply(minorUnits, quantity));
+    }
+    
+    /**
+     * Apply a rate, rounding half-even to a cent
+     * @param basisPoints Rate in hundredths of a percent, e.g. 800 for 8%
+     * @return Rounded amount
+     */
+    public Money percentage(int basisPoints) {
+        return ofMinor(applyRate(minorUnits, basisPoints));
+    }
+    
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+    
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+    
+    /**
+     * Convert to a decimal value, for display and charts only
+     * @return Amount as double
+     */
+    public double toDouble() {
+        return (double) minorUnits / MINOR_PER_MAJOR;
+    }
+    
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+    
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).minorUnits == minorUnits;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+    
+    @Override
+    public String toString() {
+        long major = minorUnits / MINOR_PER_MAJOR;
+        long minor = Math.abs(minorUnits % MINOR_PER_MAJOR);
+        String sign = minorUnits < 0 && major == 0 ? "-" : "";
+        return sign + major + (minor < 10 ? ".0" : ".") + minor;
+    }
+}
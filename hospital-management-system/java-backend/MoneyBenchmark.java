@@ -0,0 +1,163 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+/**
+ * Money Benchmark Class
+ * Runnable throughput benchmark for month-end billing aggregation with
+ * three representations of amounts: double (how invoices stored them
+ * before Money), BigDecimal and Money's long minor units. Every invoice
+ * sums its line items (quantity times unit price), adds 8% tax and is
+ * added to the grand total, the same work the Invoice constructor and the
+ * revenue totals do. The inputs are built up front, so only the
+ * aggregation is timed.
+ *
+ * The BigDecimal and Money totals must agree to the cent; the double
+ * total is reported with its drift from them.
+ *
+ * Usage: java MoneyBenchmark [invoices]
+ * Exits with status 1 if the BigDecimal and Money totals differ.
+ */
+public class MoneyBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final double TAX_RATE = 0.08;
+    private static final BigDecimal BIG_TAX_RATE = BigDecimal.valueOf(Invoice.TAX_RATE_BASIS_POINTS, 4);
+    
+    private static int[] itemStart;
+    private static int[] quantities;
+    private static long[] minorPrices;
+    private static double[] doublePrices;
+    private static BigDecimal[] bigPrices;
+    
+    public static void main(String[] args) {
+        int invoices = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        buildInputs(invoices, new Random(42));
+        
+        System.out.printf("%-12s %14s %14s %22s %16s%n",
+            "Type", "Invoices/s", "Bytes/invoice", "Total", "Drift (cents)");
+        RunResult money = measure(invoices, MoneyBenchmark::aggregateMoney);
+        long exact = money.totalMinor;
+        RunResult big = measure(invoices, MoneyBenchmark::aggregateBigDecimal);
+        RunResult plain = measure(invoices, MoneyBenchmark::aggregateDouble);
+        
+        report("double", invoices, plain, exact);
+        report("BigDecimal", invoices, big, exact);
+        report("Money", invoices, money, exact);
+        if (big.totalMinor != exact) {
+            System.out.println("BigDecimal and Money totals differ");
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Random invoices of one to four line items with prices in whole cents
+     */
+    private static void buildInputs(int invoices, Random random) {
+        itemStart = new int[invoices + 1];
+        for (int i = 0; i < invoices; i++) {
+            itemStart[i + 1] = itemStart[i] + 1 + random.nextInt(4);
+        }
+        int items = itemStart[invoices];
+        quantities = new int[items];
+        minorPrices = new long[items];
+        doublePrices = new double[items];
+        bigPrices = new BigDecimal[items];
+        for (int i = 0; i < items; i++) {
+            quantities[i] = 1 + random.nextInt(5);
+            minorPrices[i] = 100 + random.nextInt(50_000);
+            doublePrices[i] = minorPrices[i] / 100.0;
+            bigPrices[i] = BigDecimal.valueOf(minorPrices[i], 2);
+        }
+    }
+    
+    /**
+     * Aggregation as Invoice did it with doubles: unrounded tax, summed as double
+     */
+    private static long aggregateDouble(int invoices) {
+        double total = 0;
+        for (int invoice = 0; invoice < invoices; invoice++) {
+            double subtotal = 0;
+            for (int i = itemStart[invoice]; i < itemStart[invoice + 1]; i++) {
+                subtotal += quantities[i] * doublePrices[i];
+            }
+            total += subtotal + subtotal * TAX_RATE;
+        }
+        return Math.round(total * 100);
+    }
+    
+    private static long aggregateBigDecimal(int invoices) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int invoice = 0; invoice < invoices; invoice++) {
+            BigDecimal subtotal = BigDecimal.ZERO;
+            for (int i = itemStart[invoice]; i < itemStart[invoice + 1]; i++) {
+                subtotal = subtotal.add(bigPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+            }
+            BigDecimal tax = subtotal.multiply(BIG_TAX_RATE).setScale(2, RoundingMode.HALF_EVEN);
+            total = total.add(subtotal).add(tax);
+        }
+        return total.movePointRight(2).longValueExact();
+    }
+    
+    private static long aggregateMoney(int invoices) {
+        long total = 0;
+        for (int invoice = 0; invoice < invoices; invoice++) {
+            long subtotal = 0;
+            for (int i = itemStart[invoice]; i < itemStart[invoice + 1]; i++) {
+                subtotal = Money.add(subtotal, Money.multiply(minorPrices[i], quantities[i]));
+            }
+            long tax = Money.applyRate(subtotal, Invoice.TAX_RATE_BASIS_POINTS);
+            total = Money.add(total, Money.add(subtotal, tax));
+        }
+        return total;
+    }
+    
+    /**
+     * Best of several timed rounds after warm-up, with the bytes allocated per round
+     */
+    private static RunResult measure(int invoices, Aggregation aggregation) {
+        RunResult result = new RunResult();
+        result.nanos = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long allocatedBefore = allocatedBytes();
+            long startTime = System.nanoTime();
+            result.totalMinor = aggregation.run(invoices);
+            long elapsed = System.nanoTime() - startTime;
+            long allocated = allocatedBytes() - allocatedBefore;
+            if (round >= WARMUP_ROUNDS && elapsed < result.nanos) {
+                result.nanos = elapsed;
+                result.allocatedBytes = allocated;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Bytes allocated by the current thread so far, or 0 if the JVM does not report it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+    
+    private static void report(String type, int invoices, RunResult result, long exactMinor) {
+        System.out.printf("%-12s %14.0f %14.1f %22s %16d%n", type,
+            invoices * 1_000_000_000.0 / result.nanos, (double) result.allocatedBytes / invoices,
+            Money.ofMinor(result.totalMinor), result.totalMinor - exactMinor);
+    }
+    
+    private interface Aggregation {
+        long run(int invoices);
+    }
+    
+    private static class RunResult {
+        private long nanos;
+        private long allocatedBytes;
+        private long totalMinor;
+    }
+}
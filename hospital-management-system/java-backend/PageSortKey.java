@@ -0,0 +1,24 @@
+/**
+ * Page Sort Key Enumeration
+ * Defines the orders in which paged listings can be read
+ */
+public enum PageSortKey {
+    ID("ID"),
+    NAME("Name"),
+    DATE("Date");
+    
+    private final String displayName;
+    
+    PageSortKey(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,181 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Paged Index Class
+ * Keeps entities ordered by one sort key so listings can be read page by page.
+ * Each entry is keyed by its sort value followed by its ID, which makes the
+ * order total and lets a continuation token resume right after the last entry.
+ * Only IDs are held; entities on a page are resolved through the lookup function.
+ */
+class PagedIndex<T> {
+    private static final char KEY_SEPARATOR = '\u0000';
+    
+    private PageSortKey sortKey;
+    private Function<T, String> idFunction;
+    private Function<T, String> sortValueFunction;
+    private Function<String, T> lookupFunction;
+    private NavigableMap<String, String> entries;
+    private Map<String, String> keysById;
+    
+    public PagedIndex(PageSortKey sortKey, Function<T, String> idFunction, Function<T, String> sortValueFunction,
+                      Function<String, T> lookupFunction) {
+        this.sortKey = sortKey;
+        this.idFunction = idFunction;
+        this.sortValueFunction = sortValueFunction;
+        this.lookupFunction = lookupFunction;
+        this.entries = new ConcurrentSkipListMap<>();
+        this.keysById = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Add an entity, or move it if its sort value changed
+     * @param entity Entity to index
+     */
+    public void put(T entity) {
+        String id = idFunction.apply(entity);
+        String key = keyOf(entity);
+        
+        String previousKey = keysById.put(id, key);
+        if (previousKey != null && !previousKey.equals(key)) {
+            entries.remove(previousKey);
+        }
+        entries.put(key, id);
+    }
+    
+    /**
+     * Remove an entity by ID
+     * @param id Entity ID
+     */
+    public void remove(String id) {
+        String key = keysById.remove(id);
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+    
+    /**
+     * Read one page of entities in sort order
+     * @param pageSize Maximum number of entities on the page
+     * @param continuationToken Token from the previous page, or null for the first page
+     * @return Page of entities with the token for the next page
+     */
+    public Page<T> page(int pageSize, String continuationToken) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        
+        Iterator<Map.Entry<String, String>> iterator = continuationToken == null ?
+            entries.entrySet().iterator() :
+            entries.tailMap(decodeToken(continuationToken), false).entrySet().iterator();
+        
+        List<T> items = new ArrayList<>(pageSize);
+        String lastKey = null;
+        while (items.size() < pageSize && iterator.hasNext()) {
+            Map.Entry<String, String> entry = iterator.next();
+            lastKey = entry.getKey();
+            T entity = lookupFunction.apply(entry.getValue());
+            if (entity != null) {
+                items.add(entity);
+            }
+        }
+        
+        String nextToken = iterator.hasNext() ? encodeToken(lastKey) : null;
+        return new Page<>(items, nextToken);
+    }
+    
+    /**
+     * Read one page in sort order by scanning entities instead of the index,
+     * for owners that do not keep the index filled. Only the entities on the
+     * page are held while scanning, and tokens are the same as page()'s.
+     * @param entities All entities, in any order
+     * @param pageSize Maximum number of entities on the page
+     * @param continuationToken Token from the previous page, or null for the first page
+     * @return Page of entities with the token for the next page
+     */
+    public Page<T> scan(Iterable<T> entities, int pageSize, String continuationToken) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        String after = continuationToken == null ? null : decodeToken(continuationToken);
+        
+        // Largest key on top, keeping the smallest pageSize + 1 keys after the token
+        PriorityQueue<Map.Entry<String, T>> smallest =
+            new PriorityQueue<>(Map.Entry.<String, T>comparingByKey().reversed());
+        for (T entity : entities) {
+            String key = keyOf(entity);
+            if (after != null && key.compareTo(after) <= 0) {
+                continue;
+            }
+            if (smallest.size() <= pageSize) {
+                smallest.add(new AbstractMap.SimpleImmutableEntry<>(key, entity));
+            } else if (key.compareTo(smallest.peek().getKey()) < 0) {
+                smallest.poll();
+                smallest.add(new AbstractMap.SimpleImmutableEntry<>(key, entity));
+            }
+        }
+        
+        boolean hasNext = smallest.size() > pageSize;
+        if (hasNext) {
+            smallest.poll();
+        }
+        List<Map.Entry<String, T>> sorted = new ArrayList<>(smallest);
+        sorted.sort(Map.Entry.comparingByKey());
+        List<T> items = new ArrayList<>(sorted.size());
+        for (Map.Entry<String, T> entry : sorted) {
+            items.add(entry.getValue());
+        }
+        String nextToken = hasNext ? encodeToken(sorted.get(sorted.size() - 1).getKey()) : null;
+        return new Page<>(items, nextToken);
+    }
+    
+    public PageSortKey getSortKey() {
+        return sortKey;
+    }
+    
+    private String keyOf(T entity) {
+        String sortValue = sortValueFunction.apply(entity);
+        return (sortValue == null ? "" : sortValue) + KEY_SEPARATOR + idFunction.apply(entity);
+    }
+    
+    private String encodeToken(String key) {
+        String token = sortKey.name() + KEY_SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private String decodeToken(String continuationToken) {
+        String token;
+        try {
+            token = new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token");
+        }
+        
+        String prefix = sortKey.name() + KEY_SEPARATOR;
+        if (!token.startsWith(prefix)) {
+            throw new IllegalArgumentException("Continuation token was issued for a different sort key");
+        }
+        return token.substring(prefix.length());
+    }
+}
+
+/**
+ * Page Class
+ */
+class Page<T> {
+    private List<T> items;
+    private String nextToken;
+    
+    public Page(List<T> items, String nextToken) {
+        this.items = items;
+        this.nextToken = nextToken;
+    }
+    
+    // Getters
+    public List<T> getItems() { return items; }
+    public String getNextToken() { return nextToken; }
+    public boolean hasNext() { return nextToken != null; }
+}
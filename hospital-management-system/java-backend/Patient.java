@@ -13,12 +13,14 @@ public class Patient {
     private String gender;
     private String phone;
     private String email;
-    private String bloodGroup;
+    private BloodGroup bloodGroup;
     private String insurance;
     private String address;
     private String emergencyContact;
-    private String status;
+    private PatientStatus status;
+    private String statusText;
     private String registrationDate;
+    private ChangeListener changeListener;
     
     // Constructor
     public Patient(String patientId, String firstName, String lastName, int age, 
@@ -28,17 +30,54 @@ public class Patient {
         this.firstName = firstName;
         this.lastName = lastName;
         this.age = age;
-        this.gender = gender;
+        this.gender = StringDictionary.GENDERS.canonicalize(gender);
         this.phone = phone;
         this.email = email;
-        this.bloodGroup = bloodGroup;
-        this.insurance = insurance;
+        this.bloodGroup = BloodGroup.fromString(bloodGroup);
+        this.insurance = StringDictionary.INSURANCE_CARRIERS.canonicalize(insurance);
         this.address = address;
         this.emergencyContact = emergencyContact;
-        this.status = "Active";
+        this.status = PatientStatus.ACTIVE;
         this.registrationDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
     }
     
+    /**
+     * Copy constructor used for change snapshots and imports; the copy has no listener
+     */
+    private Patient(Patient source, String patientId) {
+        this.patientId = patientId;
+        this.firstName = source.firstName;
+        this.lastName = source.lastName;
+        this.age = source.age;
+        this.gender = source.gender;
+        this.phone = source.phone;
+        this.email = source.email;
+        this.bloodGroup = source.bloodGroup;
+        this.insurance = source.insurance;
+        this.address = source.address;
+        this.emergencyContact = source.emergencyContact;
+        this.status = source.status;
+        this.statusText = source.statusText;
+        this.registrationDate = source.registrationDate;
+    }
+    
+    /**
+     * Create a detached copy of the patient's current fields
+     * @return Copy that is not tracked by any manager
+     */
+    Patient copy() {
+        return new Patient(this, patientId);
+    }
+    
+    /**
+     * Create a detached copy of the patient's current fields under another ID
+     * @param patientId ID of the copy
+     * @return Copy that is not tracked by any manager
+     */
+    Patient copy(String patientId) {
+        return new Patient(this, patientId);
+    }
+    
     // Getters
     public String getPatientId() {
         return patientId;
@@ -73,6 +112,10 @@ public class Patient {
     }
     
     public String getBloodGroup() {
+        return bloodGroup.getDisplayName();
+    }
+    
+    public BloodGroup getBloodGroupValue() {
         return bloodGroup;
     }
     
@@ -89,6 +132,10 @@ public class Patient {
     }
     
     public String getStatus() {
+        return statusText != null ? statusText : status.getDisplayName();
+    }
+    
+    public PatientStatus getStatusValue() {
         return status;
     }
     
@@ -98,47 +145,114 @@ public class Patient {
     
     // Setters
     public void setFirstName(String firstName) {
+        fireBeforeChange();
         this.firstName = firstName;
+        fireAfterChange();
     }
     
     public void setLastName(String lastName) {
+        fireBeforeChange();
         this.lastName = lastName;
+        fireAfterChange();
     }
     
     public void setAge(int age) {
+        fireBeforeChange();
         this.age = age;
+        fireAfterChange();
     }
     
     public void setGender(String gender) {
-        this.gender = gender;
+        fireBeforeChange();
+        this.gender = StringDictionary.GENDERS.canonicalize(gender);
+        fireAfterChange();
     }
     
     public void setPhone(String phone) {
+        fireBeforeChange();
         this.phone = phone;
+        fireAfterChange();
     }
     
     public void setEmail(String email) {
+        fireBeforeChange();
         this.email = email;
+        fireAfterChange();
     }
     
     public void setBloodGroup(String bloodGroup) {
-        this.bloodGroup = bloodGroup;
+        fireBeforeChange();
+        this.bloodGroup = BloodGroup.fromString(bloodGroup);
+        fireAfterChange();
     }
     
     public void setInsurance(String insurance) {
-        this.insurance = insurance;
+        fireBeforeChange();
+        this.insurance = StringDictionary.INSURANCE_CARRIERS.canonicalize(insurance);
+        fireAfterChange();
     }
     
     public void setAddress(String address) {
+        fireBeforeChange();
         this.address = address;
+        fireAfterChange();
     }
     
     public void setEmergencyContact(String emergencyContact) {
+        fireBeforeChange();
         this.emergencyContact = emergencyContact;
+        fireAfterChange();
     }
     
+    /**
+     * Set the status from text; a status that is none of the PatientStatus
+     * values is stored as UNKNOWN but keeps its text, which getStatus returns
+     */
     public void setStatus(String status) {
+        PatientStatus value = PatientStatus.fromString(status);
+        fireBeforeChange();
+        this.status = value;
+        this.statusText = value == PatientStatus.UNKNOWN && status != null ? status.trim() : null;
+        fireAfterChange();
+    }
+    
+    public void setStatus(PatientStatus status) {
+        fireBeforeChange();
         this.status = status;
+        this.statusText = null;
+        fireAfterChange();
+    }
+    
+    void setRegistrationDate(String registrationDate) {
+        this.registrationDate = registrationDate;
+    }
+    
+    /**
+     * Listener notified around changes to patient fields
+     */
+    interface ChangeListener {
+        void beforeChange(Patient patient);
+        void afterChange(Patient patient);
+    }
+    
+    void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+    
+    ChangeListener getChangeListener() {
+        return changeListener;
+    }
+    
+    private void fireBeforeChange() {
+        if (changeListener != null) {
+            changeListener.beforeChange(this);
+        }
+    }
+    
+    private void fireAfterChange() {
+        if (changeListener != null) {
+            changeListener.afterChange(this);
+        }
     }
     
     @Override
@@ -147,9 +261,9 @@ public class Patient {
                 "patientId='" + patientId + '\'' +
                 ", name='" + getFullName() + '\'' +
                 ", age=" + age +
-                ", gender='" + gender + '\'' +
+                ", gender='" + getGender() + '\'' +
                 ", phone='" + phone + '\'' +
-                ", status='" + status + '\'' +
+                ", status='" + getStatus() + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,51 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Patient Adjacency Index Class
+ * IDs of the records (appointments, invoices) that belong to each patient,
+ * so a patient's records are found without scanning a whole manager.
+ * The sets are concurrent so the index can be shared by concurrent managers.
+ */
+class PatientAdjacencyIndex {
+    private Map<String, Set<String>> recordsByPatient;
+    
+    public PatientAdjacencyIndex() {
+        this.recordsByPatient = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Link a record to a patient
+     * @param patientId Patient ID
+     * @param recordId Record ID
+     */
+    public void add(String patientId, String recordId) {
+        recordsByPatient.compute(patientId, (key, ids) -> {
+            Set<String> records = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            records.add(recordId);
+            return records;
+        });
+    }
+    
+    /**
+     * Unlink a record from a patient
+     * @param patientId Patient ID
+     * @param recordId Record ID
+     */
+    public void remove(String patientId, String recordId) {
+        recordsByPatient.computeIfPresent(patientId, (key, records) -> {
+            records.remove(recordId);
+            return records.isEmpty() ? null : records;
+        });
+    }
+    
+    /**
+     * Get the records of a patient
+     * @param patientId Patient ID
+     * @return Read-only live view of the record IDs, empty if the patient has none
+     */
+    public Set<String> get(String patientId) {
+        Set<String> records = recordsByPatient.get(patientId);
+        return records == null ? Collections.emptySet() : Collections.unmodifiableSet(records);
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.*;
+
+/**
+ * Patient Attribute Index Class
+ * Bitmap indexes for patient status and blood group over dense patient ordinals.
+ * All methods are synchronized so the index can be shared by concurrent managers.
+ */
+class PatientAttributeIndex {
+    private Map<String, Integer> ordinals;
+    private List<String> patientIds;
+    private Deque<Integer> freeOrdinals;
+    private Map<PatientStatus, BitSet> statusBitmaps;
+    private Map<BloodGroup, BitSet> bloodGroupBitmaps;
+    
+    public PatientAttributeIndex() {
+        this.ordinals = new HashMap<>();
+        this.patientIds = new ArrayList<>();
+        this.freeOrdinals = new ArrayDeque<>();
+        this.statusBitmaps = new EnumMap<>(PatientStatus.class);
+        this.bloodGroupBitmaps = new EnumMap<>(BloodGroup.class);
+        
+        for (PatientStatus status : PatientStatus.values()) {
+            statusBitmaps.put(status, new BitSet());
+        }
+        for (BloodGroup bloodGroup : BloodGroup.values()) {
+            bloodGroupBitmaps.put(bloodGroup, new BitSet());
+        }
+    }
+    
+    /**
+     * Assign an ordinal to a patient and set its attribute bits
+     * @param patientId Patient ID the patient is stored under
+     * @param patient Patient to index
+     */
+    public synchronized void add(String patientId, Patient patient) {
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = patientIds.size();
+            patientIds.add(patientId);
+        } else {
+            // Reuse released ordinals so the bitmaps stay dense
+            ordinal = freeOrdinals.pop();
+            patientIds.set(ordinal, patientId);
+        }
+        ordinals.put(patientId, ordinal);
+        
+        statusBitmaps.get(patient.getStatusValue()).set(ordinal);
+        bloodGroupBitmaps.get(patient.getBloodGroupValue()).set(ordinal);
+    }
+    
+    /**
+     * Index a batch of patients under a single lock acquisition
+     * @param batch Patients to index under their own IDs
+     */
+    public synchronized void addAll(Collection<Patient> batch) {
+        for (Patient patient : batch) {
+            add(patient.getPatientId(), patient);
+        }
+    }
+    
+    /**
+     * Clear a patient's attribute bits and release its ordinal
+     * @param patientId Patient ID the patient is stored under
+     * @param patient Patient to remove
+     */
+    public synchronized void remove(String patientId, Patient patient) {
+        Integer ordinal = ordinals.remove(patientId);
+        if (ordinal == null) {
+            return;
+        }
+        
+        statusBitmaps.get(patient.getStatusValue()).clear(ordinal);
+        bloodGroupBitmaps.get(patient.getBloodGroupValue()).clear(ordinal);
+        patientIds.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+    }
+    
+    /**
+     * Get IDs of patients matching the given attributes
+     * @param status Status to match, or null for any status
+     * @param bloodGroup Blood group to match, or null for any blood group
+     * @return List of matching patient IDs
+     */
+    public synchronized List<String> selectPatientIds(PatientStatus status, BloodGroup bloodGroup) {
+        BitSet matches = select(status, bloodGroup);
+        List<String> result = new ArrayList<>(matches.cardinality());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            result.add(patientIds.get(ordinal));
+        }
+        return result;
+    }
+    
+    private BitSet select(PatientStatus status, BloodGroup bloodGroup) {
+        BitSet result;
+        if (status != null) {
+            result = (BitSet) statusBitmaps.get(status).clone();
+            if (bloodGroup != null) {
+                result.and(bloodGroupBitmaps.get(bloodGroup));
+            }
+        } else if (bloodGroup != null) {
+            result = (BitSet) bloodGroupBitmaps.get(bloodGroup).clone();
+        } else {
+            result = new BitSet();
+            for (BitSet bitmap : statusBitmaps.values()) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Count patients matching the given attributes
+     * @param status Status to match, or null for any status
+     * @param bloodGroup Blood group to match, or null for any blood group
+     * @return Number of matching patients
+     */
+    public synchronized int count(PatientStatus status, BloodGroup bloodGroup) {
+        if (bloodGroup == null) {
+            return status == null ? ordinals.size() : statusBitmaps.get(status).cardinality();
+        }
+        if (status == null) {
+            return bloodGroupBitmaps.get(bloodGroup).cardinality();
+        }
+        return select(status, bloodGroup).cardinality();
+    }
+
+}
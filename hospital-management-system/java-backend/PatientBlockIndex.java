@@ -0,0 +1,184 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Patient Block Index Class
+ * Groups patients into blocks that share a phonetic name, a normalized phone
+ * number or an email local part, so duplicate candidates can be found without
+ * comparing every pair of patients.
+ * Blocks are concurrent sets so the index can be shared by concurrent managers.
+ */
+class PatientBlockIndex {
+    private Map<String, Set<String>> blocks;
+    
+    public PatientBlockIndex() {
+        this.blocks = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Add a patient to each of its blocks
+     * @param patientId Patient ID the patient is stored under
+     * @param patient Patient to index
+     */
+    public void add(String patientId, Patient patient) {
+        for (String key : blockingKeys(patient)) {
+            blocks.compute(key, (k, ids) -> {
+                Set<String> block = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                block.add(patientId);
+                return block;
+            });
+        }
+    }
+    
+    /**
+     * Remove a patient from its blocks using its current field values
+     * @param patientId Patient ID the patient is stored under
+     * @param patient Patient to remove
+     */
+    public void remove(String patientId, Patient patient) {
+        for (String key : blockingKeys(patient)) {
+            blocks.computeIfPresent(key, (k, ids) -> {
+                ids.remove(patientId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+    
+    /**
+     * Get IDs of patients sharing at least one block with a patient
+     * @param patient Patient to find candidates for, need not be stored
+     * @return Candidate patient IDs
+     */
+    public Set<String> candidates(Patient patient) {
+        Set<String> result = new HashSet<>();
+        for (String key : blockingKeys(patient)) {
+            Set<String> block = blocks.get(key);
+            if (block != null) {
+                result.addAll(block);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Get a snapshot of all blocks holding more than one patient
+     * @return List of blocks
+     */
+    public List<Set<String>> getBlocks() {
+        List<Set<String>> result = new ArrayList<>();
+        for (Set<String> block : blocks.values()) {
+            if (block.size() > 1) {
+                result.add(new HashSet<>(block));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Get the blocking keys of a patient
+     * @param patient Patient to compute keys for
+     * @return Blocking keys (phonetic name, phone and email)
+     */
+    static List<String> blockingKeys(Patient patient) {
+        List<String> keys = new ArrayList<>(3);
+        
+        String lastName = patient.getLastName();
+        String firstName = patient.getFirstName();
+        if (lastName != null && !lastName.trim().isEmpty()) {
+            // Pair the phonetic surname with the first initial to keep common surnames' blocks small
+            String initial = firstName == null || firstName.trim().isEmpty() ?
+                "" : firstName.trim().substring(0, 1).toUpperCase();
+            keys.add("N:" + soundex(lastName) + initial);
+        }
+        
+        String phone = normalizePhone(patient.getPhone());
+        if (!phone.isEmpty()) {
+            keys.add("P:" + phone);
+        }
+        
+        String emailLocalPart = normalizeEmailLocalPart(patient.getEmail());
+        if (!emailLocalPart.isEmpty()) {
+            keys.add("E:" + emailLocalPart);
+        }
+        return keys;
+    }
+    
+    /**
+     * Keep the last seven digits of a phone number so country code, area code
+     * formatting and punctuation are ignored
+     * @param phone Phone number as entered
+     * @return Normalized digits, empty if fewer than seven digits
+     */
+    static String normalizePhone(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.length() < 7) {
+            return "";
+        }
+        return digits.substring(digits.length() - 7);
+    }
+    
+    /**
+     * Get the email local part, lowercased, without dots or "+tag" suffix
+     * @param email Email address as entered
+     * @return Normalized local part, empty if missing
+     */
+    static String normalizeEmailLocalPart(String email) {
+        if (email == null) {
+            return "";
+        }
+        String value = email.trim().toLowerCase();
+        int at = value.indexOf('@');
+        String localPart = at >= 0 ? value.substring(0, at) : value;
+        int plus = localPart.indexOf('+');
+        if (plus >= 0) {
+            localPart = localPart.substring(0, plus);
+        }
+        return localPart.replace(".", "");
+    }
+    
+    /**
+     * American Soundex code of a name
+     * @param name Name to encode
+     * @return Four character Soundex code, or empty if the name has no letters
+     */
+    static String soundex(String name) {
+        final String codes = "01230120022455012623010202"; // A-Z
+        StringBuilder result = new StringBuilder(4);
+        char lastCode = 0;
+        
+        for (int i = 0; i < name.length() && result.length() < 4; i++) {
+            char c = Character.toUpperCase(name.charAt(i));
+            if (c < 'A' || c > 'Z') {
+                continue;
+            }
+            char code = codes.charAt(c - 'A');
+            if (result.length() == 0) {
+                result.append(c);
+                lastCode = code;
+            } else if (code != '0' && code != lastCode) {
+                result.append(code);
+                lastCode = code;
+            } else if (c != 'H' && c != 'W') {
+                // Vowels separate repeated codes, H and W do not
+                lastCode = code;
+            }
+        }
+        
+        if (result.length() == 0) {
+            return "";
+        }
+        while (result.length() < 4) {
+            result.append('0');
+        }
+        return result.toString();
+    }
+}
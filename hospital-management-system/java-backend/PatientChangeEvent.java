@@ -0,0 +1,50 @@
+/**
+ * Patient Change Event Class
+ * One patient mutation on the change stream. Before and after are detached
+ * snapshots, so consumers may keep them without seeing later changes.
+ */
+public class PatientChangeEvent {
+    private long sequence;
+    private PatientChangeType type;
+    private String patientId;
+    private Patient before;
+    private Patient after;
+    private long timestamp;
+    
+    public PatientChangeEvent(long sequence, PatientChangeType type, String patientId,
+                              Patient before, Patient after) {
+        this.sequence = sequence;
+        this.type = type;
+        this.patientId = patientId;
+        this.before = before;
+        this.after = after;
+        this.timestamp = System.currentTimeMillis();
+    }
+    
+    // Getters
+    public long getSequence() { return sequence; }
+    public PatientChangeType getType() { return type; }
+    public String getPatientId() { return patientId; }
+    public long getTimestamp() { return timestamp; }
+    
+    /**
+     * Get the patient as it was before the change
+     * @return Snapshot, or null for CREATED events
+     */
+    public Patient getBefore() { return before; }
+    
+    /**
+     * Get the patient as it is after the change
+     * @return Snapshot, or null for REMOVED events
+     */
+    public Patient getAfter() { return after; }
+    
+    @Override
+    public String toString() {
+        return "PatientChangeEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", patientId='" + patientId + '\'' +
+                '}';
+    }
+}
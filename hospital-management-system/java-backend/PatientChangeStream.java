@@ -0,0 +1,284 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Patient Change Stream Class
+ * Bounded, lock-free ring buffer of patient change events with any number
+ * of subscribers. Producers claim a sequence number with an atomic increment and publish
+ * the event into its slot; each subscriber reads every event in sequence
+ * order from its own cursor.
+ *
+ * A slot is only reused once every subscriber has read it, so a subscriber
+ * that falls a full ring behind makes producers wait (backpressure) instead
+ * of losing events. Producers publish while holding patient locks, so the
+ * wait is bounded: a subscriber still a full ring behind after the
+ * backpressure timeout is cut off. Its subscription is closed and reports
+ * isOverflowed(), and the other subscribers keep every event.
+ * With no subscribers, publishing never waits and producers may lap each
+ * other; a slot only ever moves forward to a later sequence, so a delayed
+ * producer can never replace an event that a new subscriber still needs.
+ */
+class PatientChangeStream {
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_BACKPRESSURE_TIMEOUT_MILLIS = 1000;
+    
+    private int capacity;
+    private int mask;
+    private long backpressureTimeoutNanos;
+    private AtomicReferenceArray<PatientChangeEvent> slots;
+    private AtomicLong claimedSequence;
+    private List<PatientChangeSubscription> subscriptions;
+    
+    public PatientChangeStream() {
+        this(DEFAULT_CAPACITY, DEFAULT_BACKPRESSURE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Create a change stream with the default backpressure timeout
+     * @param capacity Number of events buffered for the slowest subscriber, a power of two
+     */
+    public PatientChangeStream(int capacity) {
+        this(capacity, DEFAULT_BACKPRESSURE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Create a change stream
+     * @param capacity Number of events buffered for the slowest subscriber, a power of two
+     * @param backpressureTimeout Longest a producer waits for the slowest subscriber before cutting it off
+     * @param unit Unit of the timeout
+     */
+    public PatientChangeStream(int capacity, long backpressureTimeout, TimeUnit unit) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+        }
+        if (backpressureTimeout < 0) {
+            throw new IllegalArgumentException("Backpressure timeout must not be negative: " + backpressureTimeout);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.backpressureTimeoutNanos = unit.toNanos(backpressureTimeout);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.claimedSequence = new AtomicLong(-1);
+        this.subscriptions = new CopyOnWriteArrayList<>();
+    }
+    
+    /**
+     * Check whether anyone is listening, so callers can skip building events
+     * @return true if there is at least one open subscription
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+    
+    /**
+     * Publish a change, waiting while the slowest subscriber is a full ring
+     * behind, and cutting off subscribers that are still that far behind
+     * after the backpressure timeout
+     * @param type Kind of change
+     * @param patientId ID of the changed patient
+     * @param before Snapshot before the change, or null
+     * @param after Snapshot after the change, or null
+     * @return Sequence number of the event
+     */
+    public long publish(PatientChangeType type, String patientId, Patient before, Patient after) {
+        long sequence = claimedSequence.incrementAndGet();
+        long deadline = 0;
+        for (int idle = 0; sequence - capacity >= slowestSubscriberSequence(); idle++) {
+            if (idle == 0) {
+                deadline = System.nanoTime() + backpressureTimeoutNanos;
+            } else if (System.nanoTime() - deadline >= 0) {
+                overflowSubscribersBefore(sequence - capacity + 1);
+            }
+            waitBriefly(idle);
+        }
+        
+        int slot = (int) sequence & mask;
+        PatientChangeEvent event = new PatientChangeEvent(sequence, type, patientId, before, after);
+        // Only a producer that was lapped while nobody subscribed finds a later event
+        // here; no subscriber can need its event, so it is dropped
+        PatientChangeEvent current = slots.get(slot);
+        while ((current == null || current.getSequence() < sequence)
+               && !slots.compareAndSet(slot, current, event)) {
+            current = slots.get(slot);
+        }
+        return sequence;
+    }
+    
+    /**
+     * Subscribe to events published from now on
+     * @return New subscription reading from the next published event
+     */
+    public PatientChangeSubscription subscribe() {
+        // The cursor is set before the subscription becomes visible to producers,
+        // and starts conservatively so no producer that sees the subscription can
+        // overwrite a slot it may still need; then it moves to the head. Producers
+        // that claimed earlier without seeing it only write sequences before the head
+        PatientChangeSubscription subscription = new PatientChangeSubscription(this, claimedSequence.get() + 1);
+        subscriptions.add(subscription);
+        subscription.startAt(claimedSequence.get() + 1);
+        return subscription;
+    }
+    
+    void unsubscribe(PatientChangeSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+    
+    /**
+     * Get the event with the given sequence if it has been published
+     */
+    PatientChangeEvent eventAt(long sequence) {
+        PatientChangeEvent event = slots.get((int) sequence & mask);
+        return event != null && event.getSequence() == sequence ? event : null;
+    }
+    
+    long getClaimedSequence() {
+        return claimedSequence.get();
+    }
+    
+    private long slowestSubscriberSequence() {
+        long slowest = Long.MAX_VALUE;
+        for (PatientChangeSubscription subscription : subscriptions) {
+            slowest = Math.min(slowest, subscription.getNextSequence());
+        }
+        return slowest;
+    }
+    
+    /**
+     * Cut off every subscriber that has not yet read the given sequence
+     */
+    private void overflowSubscribersBefore(long sequence) {
+        for (PatientChangeSubscription subscription : subscriptions) {
+            if (subscription.getNextSequence() < sequence) {
+                subscription.overflow();
+            }
+        }
+    }
+    
+    static void waitBriefly(int idle) {
+        if (idle < 100) {
+            Thread.onSpinWait();
+        } else if (idle < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+}
+
+/**
+ * Patient Change Subscription Class
+ * One consumer's cursor on a PatientChangeStream. A subscription must be
+ * read by a single thread at a time. A subscription that fell too far
+ * behind is closed by the stream; isOverflowed() then tells the consumer
+ * that events were missed and it must resynchronize, e.g. from a fresh
+ * read of the patients and a new subscription.
+ */
+class PatientChangeSubscription implements AutoCloseable {
+    private PatientChangeStream stream;
+    private AtomicLong nextSequence;
+    private volatile boolean closed;
+    private volatile boolean overflowed;
+    
+    PatientChangeSubscription(PatientChangeStream stream, long nextSequence) {
+        this.stream = stream;
+        this.nextSequence = new AtomicLong(nextSequence);
+    }
+    
+    void startAt(long sequence) {
+        nextSequence.set(sequence);
+    }
+    
+    long getNextSequence() {
+        return nextSequence.get();
+    }
+    
+    /**
+     * Take the next event if one has been published
+     * @return Next event, or null if none is available yet
+     */
+    public PatientChangeEvent poll() {
+        if (closed) {
+            return null;
+        }
+        long sequence = nextSequence.get();
+        PatientChangeEvent event = stream.eventAt(sequence);
+        if (event != null) {
+            // Releasing the slot only after reading it lets producers reuse it safely
+            nextSequence.set(sequence + 1);
+        }
+        return event;
+    }
+    
+    /**
+     * Wait for the next event
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return Next event, or null if none arrived in time or the subscription is closed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public PatientChangeEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int idle = 0; ; idle++) {
+            PatientChangeEvent event = poll();
+            if (event != null || closed || System.nanoTime() - deadline >= 0) {
+                return event;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            PatientChangeStream.waitBriefly(idle);
+        }
+    }
+    
+    /**
+     * Hand all currently available events, up to a limit, to a consumer
+     * @param consumer Consumer receiving events in sequence order
+     * @param maxEvents Maximum number of events to drain
+     * @return Number of events drained
+     */
+    public int drainTo(Consumer<PatientChangeEvent> consumer, int maxEvents) {
+        int drained = 0;
+        PatientChangeEvent event;
+        while (drained < maxEvents && (event = poll()) != null) {
+            consumer.accept(event);
+            drained++;
+        }
+        return drained;
+    }
+    
+    /**
+     * Get the number of claimed events this subscription has not read yet
+     * @return Events behind the head of the stream
+     */
+    public long getLag() {
+        return Math.max(0, stream.getClaimedSequence() + 1 - nextSequence.get());
+    }
+    
+    /**
+     * Check whether the stream cut this subscription off for falling a full
+     * buffer behind for longer than the backpressure timeout
+     * @return true if events were missed and the subscription is closed
+     */
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+    
+    void overflow() {
+        overflowed = true;
+        close();
+    }
+    
+    /**
+     * Stop receiving events and stop holding back producers
+     */
+    @Override
+    public void close() {
+        closed = true;
+        stream.unsubscribe(this);
+    }
+}
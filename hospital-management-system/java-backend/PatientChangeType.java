@@ -0,0 +1,42 @@
+/**
+ * Patient Change Type Enumeration
+ * Defines the kinds of patient mutations published on the change stream
+ */
+public enum PatientChangeType {
+    CREATED("Created"),
+    UPDATED("Updated"),
+    REMOVED("Removed");
+    
+    private final String displayName;
+    
+    PatientChangeType(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+    
+    /**
+     * Get PatientChangeType from string
+     * @param type String representation of change type
+     * @return PatientChangeType enum value, or null if not recognized
+     */
+    public static PatientChangeType fromString(String type) {
+        if (type != null) {
+            String value = type.trim();
+            for (PatientChangeType changeType : PatientChangeType.values()) {
+                if (changeType.displayName.equalsIgnoreCase(value) ||
+                    changeType.name().equalsIgnoreCase(value)) {
+                    return changeType;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.*;
+
+/**
+ * Patient Demographics Class
+ * Incrementally maintained age group, gender and active patient counts.
+ * All methods are synchronized so the counts can be shared by concurrent managers.
+ */
+class PatientDemographics {
+    public static final String[] AGE_GROUPS = {"0-18", "19-35", "36-50", "51-65", "65+"};
+    
+    private int[] ageGroupCounts;
+    private Map<String, int[]> genderCounts;
+    private int activeCount;
+    
+    public PatientDemographics() {
+        this.ageGroupCounts = new int[AGE_GROUPS.length];
+        this.genderCounts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    }
+    
+    /**
+     * Count a patient in the demographics
+     * @param patient Patient being stored
+     */
+    public synchronized void add(Patient patient) {
+        adjust(patient, 1);
+    }
+    
+    /**
+     * Count a batch of patients under a single lock acquisition
+     * @param batch Patients being stored
+     */
+    public synchronized void addAll(Collection<Patient> batch) {
+        for (Patient patient : batch) {
+            adjust(patient, 1);
+        }
+    }
+    
+    /**
+     * Stop counting a patient using its current field values
+     * @param patient Patient being dropped
+     */
+    public synchronized void remove(Patient patient) {
+        adjust(patient, -1);
+    }
+    
+    private void adjust(Patient patient, int delta) {
+        ageGroupCounts[ageGroupOf(patient.getAge())] += delta;
+        
+        String gender = patient.getGender() == null ? "" : patient.getGender().trim();
+        int[] count = genderCounts.get(gender);
+        if (count == null) {
+            count = new int[1];
+            genderCounts.put(gender, count);
+        }
+        count[0] += delta;
+        if (count[0] == 0) {
+            genderCounts.remove(gender);
+        }
+        
+        if (patient.getStatusValue() == PatientStatus.ACTIVE) {
+            activeCount += delta;
+        }
+    }
+    
+    /**
+     * Get the age group index for an age
+     * @param age Patient age
+     * @return Index into {@link #AGE_GROUPS}
+     */
+    public static int ageGroupOf(int age) {
+        if (age <= 18) {
+            return 0;
+        } else if (age <= 35) {
+            return 1;
+        } else if (age <= 50) {
+            return 2;
+        } else if (age <= 65) {
+            return 3;
+        }
+        return 4;
+    }
+    
+    public synchronized int getAgeGroupCount(int ageGroup) {
+        return ageGroupCounts[ageGroup];
+    }
+    
+    public synchronized int getGenderCount(String gender) {
+        int[] count = genderCounts.get(gender == null ? "" : gender.trim());
+        return count == null ? 0 : count[0];
+    }
+    
+    public synchronized List<String> getGenders() {
+        return new ArrayList<>(genderCounts.keySet());
+    }
+    
+    public synchronized int getActiveCount() {
+        return activeCount;
+    }
+}
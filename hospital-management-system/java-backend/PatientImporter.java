@@ -0,0 +1,422 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Patient Importer Class
+ * Streams patients from a CSV or NDJSON file into a PatientManager.
+ * Each batch of rows is parsed and validated in parallel and then inserted
+ * with a single PatientManager.addPatients call; rejected rows are written
+ * to a side file together with the reason they were rejected.
+ *
+ * CSV files need a header row naming the columns (firstName, lastName, age,
+ * gender, phone, email, bloodGroup, insurance, address, emergencyContact and
+ * optionally patientId and status). NDJSON files hold one flat JSON object
+ * per line with the same keys. A patient ID is generated when none is given;
+ * generated IDs go to valid rows in file order and start past every ID the
+ * file gives explicitly, so no later row can find its own ID already taken.
+ */
+public class PatientImporter {
+    private static final int DEFAULT_BATCH_SIZE = 5000;
+    
+    private PatientManager patientManager;
+    private int batchSize;
+    
+    public PatientImporter(PatientManager patientManager) {
+        this(patientManager, DEFAULT_BATCH_SIZE);
+    }
+    
+    public PatientImporter(PatientManager patientManager, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.patientManager = patientManager;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Import patients from a file, choosing the format by extension
+     * (.ndjson or .jsonl for NDJSON, anything else for CSV)
+     * @param source File to import
+     * @param rejectsFile File that receives rejected rows
+     * @return Import result with counts and throughput
+     * @throws IOException if either file cannot be read or written
+     */
+    public PatientImportResult importFile(Path source, Path rejectsFile) throws IOException {
+        String name = source.getFileName().toString().toLowerCase();
+        boolean json = name.endsWith(".ndjson") || name.endsWith(".jsonl");
+        
+        long startTime = System.nanoTime();
+        int accepted = 0;
+        int rejected = 0;
+        Set<String> seenIds = new HashSet<>();
+        
+        reserveExplicitIds(source, json);
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+            String[] header = null;
+            if (!json) {
+                String headerLine = reader.readLine();
+                if (headerLine == null) {
+                    return new PatientImportResult(0, 0, System.nanoTime() - startTime);
+                }
+                header = parseCsvLine(headerLine);
+                rejects.write(headerLine + ",rejectReason");
+                rejects.newLine();
+            }
+            
+            List<String> lines = new ArrayList<>(batchSize);
+            String line;
+            do {
+                line = reader.readLine();
+                if (line != null && !line.trim().isEmpty()) {
+                    lines.add(line);
+                }
+                if (lines.size() == batchSize || (line == null && !lines.isEmpty())) {
+                    int[] counts = importBatch(lines, header, seenIds, rejects);
+                    accepted += counts[0];
+                    rejected += counts[1];
+                    lines.clear();
+                }
+            } while (line != null);
+        }
+        
+        return new PatientImportResult(accepted, rejected, System.nanoTime() - startTime);
+    }
+    
+    /**
+     * Move the ID counter past every ID the file gives explicitly, so IDs
+     * generated for earlier rows cannot take an ID a later row asks for.
+     * An explicit ID on a row that is later rejected is still skipped.
+     */
+    private void reserveExplicitIds(Path source, boolean json) throws IOException {
+        int idColumn = -1;
+        if (!json) {
+            try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+                String headerLine = reader.readLine();
+                String[] header = headerLine != null ? parseCsvLine(headerLine) : new String[0];
+                for (int i = 0; i < header.length; i++) {
+                    if (header[i].trim().equalsIgnoreCase("patientId")) {
+                        idColumn = i;
+                    }
+                }
+            }
+            if (idColumn < 0) {
+                return;
+            }
+        }
+        
+        // The CSV header row is scanned too; its "patientId" is not in the generated form
+        int column = idColumn;
+        try (Stream<String> lines = Files.lines(source, StandardCharsets.UTF_8)) {
+            lines.parallel().forEach(line -> {
+                try {
+                    String patientId;
+                    if (json) {
+                        patientId = line.trim().isEmpty() ? null : parseJsonObject(line).get("patientid");
+                    } else {
+                        String[] values = parseCsvLine(line);
+                        patientId = column < values.length ? values[column] : null;
+                    }
+                    if (patientId != null && !patientId.trim().isEmpty()) {
+                        patientManager.reservePatientId(patientId.trim());
+                    }
+                } catch (IllegalArgumentException e) {
+                    // The row is rejected when it is imported
+                }
+            });
+        }
+    }
+    
+    /**
+     * Parse and validate a batch in parallel, then assign IDs and insert the
+     * valid rows at once in file order
+     * @return Accepted and rejected counts
+     */
+    private int[] importBatch(List<String> lines, String[] header, Set<String> seenIds,
+                              BufferedWriter rejects) throws IOException {
+        Object[] outcomes = new Object[lines.size()];
+        IntStream.range(0, lines.size()).parallel().forEach(i -> {
+            try {
+                Map<String, String> fields = header != null ?
+                    csvFields(header, parseCsvLine(lines.get(i))) : parseJsonObject(lines.get(i));
+                outcomes[i] = toPatient(fields);
+            } catch (IllegalArgumentException e) {
+                outcomes[i] = e.getMessage();
+            }
+        });
+        
+        List<Patient> valid = new ArrayList<>(lines.size());
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] instanceof Patient) {
+                outcomes[i] = assignPatientId((Patient) outcomes[i], seenIds);
+            }
+            if (outcomes[i] instanceof Patient) {
+                valid.add((Patient) outcomes[i]);
+            } else {
+                writeReject(rejects, lines.get(i), (String) outcomes[i], header != null);
+            }
+        }
+        if (!valid.isEmpty()) {
+            patientManager.addPatients(valid);
+        }
+        return new int[] {valid.size(), outcomes.length - valid.size()};
+    }
+    
+    /**
+     * Build and validate a patient; rows without an ID get one later, in file order
+     * @return Patient whose ID is null if the row gave none
+     */
+    private Patient toPatient(Map<String, String> fields) {
+        int age;
+        try {
+            age = Integer.parseInt(String.valueOf(fields.get("age")).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid age: " + fields.get("age"));
+        }
+        
+        String patientId = fields.get("patientid");
+        patientId = patientId == null || patientId.trim().isEmpty() ? null : patientId.trim();
+        Patient patient = new Patient(patientId,
+            fields.get("firstname"), fields.get("lastname"), age,
+            fields.get("gender"), fields.get("phone"), fields.get("email"),
+            fields.get("bloodgroup"), fields.get("insurance"), fields.get("address"),
+            fields.get("emergencycontact"));
+        if (fields.get("status") != null) {
+            patient.setStatus(fields.get("status"));
+        }
+        
+        if (!patientManager.validatePatient(patient)) {
+            throw new IllegalArgumentException("Missing name or phone, or non-positive age");
+        }
+        return patient;
+    }
+    
+    /**
+     * Give a valid row its ID, generating the next free one if the row gave none
+     * @return Patient with its ID, or the reason the row is rejected
+     */
+    private Object assignPatientId(Patient patient, Set<String> seenIds) {
+        String patientId = patient.getPatientId();
+        if (patientId != null) {
+            if (patientManager.getPatient(patientId) != null || !seenIds.add(patientId)) {
+                return "Duplicate patient ID: " + patientId;
+            }
+            return patient;
+        }
+        do {
+            patientId = patientManager.generatePatientId();
+        } while (patientManager.getPatient(patientId) != null || !seenIds.add(patientId));
+        return patient.copy(patientId);
+    }
+    
+    private void writeReject(BufferedWriter rejects, String line, String reason, boolean csv) throws IOException {
+        if (csv) {
+            rejects.write(line + ",\"" + reason.replace("\"", "\"\"") + "\"");
+        } else {
+            rejects.write("{\"rejectReason\":" + jsonString(reason) + ",\"record\":" + jsonString(line.trim()) + "}");
+        }
+        rejects.newLine();
+    }
+    
+    private static String jsonString(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+    
+    private static Map<String, String> csvFields(String[] header, String[] values) {
+        if (values.length != header.length) {
+            throw new IllegalArgumentException("Expected " + header.length + " columns but found " + values.length);
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            fields.put(header[i].trim().toLowerCase(), values[i]);
+        }
+        return fields;
+    }
+    
+    /**
+     * Split a CSV line, honouring double-quoted fields with "" escapes
+     * @param line CSV line
+     * @return Field values
+     */
+    static String[] parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values.toArray(new String[0]);
+    }
+    
+    /**
+     * Parse a flat JSON object whose values are strings, numbers, booleans or null
+     * @param line JSON object text
+     * @return Field values keyed by lowercase field name
+     */
+    static Map<String, String> parseJsonObject(String line) {
+        Map<String, String> fields = new HashMap<>();
+        int[] position = {skipWhitespace(line, 0)};
+        
+        expect(line, position, '{');
+        if (peek(line, position) == '}') {
+            position[0]++;
+        } else {
+            while (true) {
+                String key = readJsonString(line, position);
+                expect(line, position, ':');
+                String value;
+                if (peek(line, position) == '"') {
+                    value = readJsonString(line, position);
+                } else {
+                    int start = position[0];
+                    while (position[0] < line.length() && ",} \t".indexOf(line.charAt(position[0])) < 0) {
+                        position[0]++;
+                    }
+                    value = line.substring(start, position[0]);
+                    if (value.isEmpty()) {
+                        throw new IllegalArgumentException("Missing value for " + key);
+                    }
+                    if (value.equals("null")) {
+                        value = null;
+                    }
+                }
+                fields.put(key.toLowerCase(), value);
+                
+                char next = peek(line, position);
+                position[0]++;
+                if (next == '}') {
+                    break;
+                }
+                if (next != ',') {
+                    throw new IllegalArgumentException("Expected ',' or '}' at " + (position[0] - 1));
+                }
+            }
+        }
+        
+        if (skipWhitespace(line, position[0]) != line.length()) {
+            throw new IllegalArgumentException("Unexpected text after JSON object");
+        }
+        return fields;
+    }
+    
+    private static String readJsonString(String line, int[] position) {
+        expect(line, position, '"');
+        StringBuilder value = new StringBuilder();
+        int i = position[0];
+        while (i < line.length() && line.charAt(i) != '"') {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if (i + 4 >= line.length()) {
+                            throw new IllegalArgumentException("Invalid unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Invalid unicode escape");
+                        }
+                        i += 4;
+                        break;
+                    default: value.append(escaped);
+                }
+            } else {
+                value.append(c);
+            }
+            i++;
+        }
+        if (i >= line.length()) {
+            throw new IllegalArgumentException("Unterminated JSON string");
+        }
+        position[0] = i + 1;
+        return value.toString();
+    }
+    
+    private static void expect(String line, int[] position, char expected) {
+        if (peek(line, position) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at " + position[0]);
+        }
+        position[0]++;
+    }
+    
+    private static char peek(String line, int[] position) {
+        position[0] = skipWhitespace(line, position[0]);
+        if (position[0] >= line.length()) {
+            throw new IllegalArgumentException("Unexpected end of JSON object");
+        }
+        return line.charAt(position[0]);
+    }
+    
+    private static int skipWhitespace(String line, int position) {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+}
+
+/**
+ * Patient Import Result Class
+ */
+class PatientImportResult {
+    private int accepted;
+    private int rejected;
+    private long elapsedNanos;
+    
+    public PatientImportResult(int accepted, int rejected, long elapsedNanos) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    // Getters
+    public int getAccepted() { return accepted; }
+    public int getRejected() { return rejected; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    public double getRecordsPerSecond() {
+        return elapsedNanos == 0 ? 0 : (accepted + rejected) * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Imported %d patients, rejected %d (%.0f records/second)",
+            accepted, rejected, getRecordsPerSecond());
+    }
+}
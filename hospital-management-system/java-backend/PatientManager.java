@@ -1,5 +1,6 @@
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Patient Manager Class
@@ -7,31 +8,99 @@ import java.util.stream.Collectors;
  */
 public class PatientManager {
     private Map<String, Patient> patients;
-    private int patientCounter;
+    private AtomicInteger patientCounter;
+    private PatientSearchIndex searchIndex;
+    private PatientAttributeIndex attributeIndex;
+    private PatientDemographics demographics;
+    private PatientBlockIndex blockIndex;
+    private Map<PageSortKey, PagedIndex<Patient>> pageIndexes;
+    private Patient.ChangeListener indexMaintainer;
+    private PatientChangeStream changeStream;
+    private Map<String, Patient> pendingSnapshots;
+    private boolean maintainIndexes;
+    private volatile boolean indexed;
     
     public PatientManager() {
-        this.patients = new HashMap<>();
-        this.patientCounter = 5; // Starting from P005
-        initializeSampleData();
+        this(new HashMap<>());
+    }
+    
+    /**
+     * Create a patient manager over the given storage map, with all indexes
+     * @param storage Map used to store patients by ID
+     */
+    protected PatientManager(Map<String, Patient> storage) {
+        this(storage, true);
+    }
+    
+    /**
+     * Create a patient manager over the given storage map.
+     * Empty storage is seeded with the sample patients. For patients already
+     * in the storage (e.g. a reopened file store) only the IDs are read here;
+     * the indexes are built from the stored patients on first use.
+     * Without maintained indexes only the demographic counts are kept;
+     * searches, status and blood group filters, duplicate candidates and
+     * pages are answered by scanning the storage, so no per-patient index
+     * entries are held on the heap.
+     * @param storage Map used to store patients by ID
+     * @param maintainIndexes Whether to keep the search, attribute, block and page indexes
+     */
+    protected PatientManager(Map<String, Patient> storage, boolean maintainIndexes) {
+        this.patients = storage;
+        this.patientCounter = new AtomicInteger(5); // Starting from P005
+        this.maintainIndexes = maintainIndexes;
+        if (maintainIndexes) {
+            this.searchIndex = new PatientSearchIndex();
+            this.attributeIndex = new PatientAttributeIndex();
+            this.blockIndex = new PatientBlockIndex();
+        }
+        this.demographics = new PatientDemographics();
+        this.pageIndexes = new EnumMap<>(PageSortKey.class);
+        pageIndexes.put(PageSortKey.ID, new PagedIndex<>(PageSortKey.ID,
+            Patient::getPatientId, Patient::getPatientId, this::lookupPatient));
+        pageIndexes.put(PageSortKey.NAME, new PagedIndex<>(PageSortKey.NAME, Patient::getPatientId,
+            patient -> (patient.getLastName() + ", " + patient.getFirstName()).toLowerCase(), this::lookupPatient));
+        this.changeStream = new PatientChangeStream();
+        this.pendingSnapshots = new ConcurrentHashMap<>();
+        this.indexMaintainer = new Patient.ChangeListener() {
+            @Override
+            public void beforeChange(Patient patient) {
+                beforePatientChange(patient);
+            }
+            
+            @Override
+            public void afterChange(Patient patient) {
+                afterPatientChange(patient);
+            }
+        };
+        
+        if (storage.isEmpty()) {
+            this.indexed = true;
+            initializeSampleData();
+        } else {
+            for (String patientId : storage.keySet()) {
+                // Continue numbering after the highest stored generated ID
+                reservePatientId(patientId);
+            }
+        }
     }
     
     /**
      * Initialize sample patient data for demonstration
      */
     private void initializeSampleData() {
-        addPatient(new Patient("P001", "John", "Doe", 35, "Male", 
+        registerPatient(new Patient("P001", "John", "Doe", 35, "Male", 
             "+1-555-0123", "john.doe@email.com", "A+", "Blue Cross", 
             "123 Main St, City, State 12345", "Jane Doe - +1-555-0124"));
             
-        addPatient(new Patient("P002", "Jane", "Smith", 28, "Female", 
+        registerPatient(new Patient("P002", "Jane", "Smith", 28, "Female", 
             "+1-555-0124", "jane.smith@email.com", "O-", "Aetna", 
             "456 Oak Ave, City, State 12345", "John Smith - +1-555-0125"));
             
-        addPatient(new Patient("P003", "Robert", "Johnson", 45, "Male", 
+        registerPatient(new Patient("P003", "Robert", "Johnson", 45, "Male", 
             "+1-555-0125", "robert.johnson@email.com", "B+", "Medicare", 
             "789 Pine St, City, State 12345", "Mary Johnson - +1-555-0126"));
             
-        addPatient(new Patient("P004", "Emily", "Davis", 32, "Female", 
+        registerPatient(new Patient("P004", "Emily", "Davis", 32, "Female", 
             "+1-555-0126", "emily.davis@email.com", "AB+", "Cigna", 
             "321 Elm St, City, State 12345", "Michael Davis - +1-555-0127"));
     }
@@ -41,10 +110,68 @@ public class PatientManager {
      * @param patient Patient object to add
      */
     public void addPatient(Patient patient) {
-        patients.put(patient.getPatientId(), patient);
+        registerPatient(patient);
+    }
+    
+    private void registerPatient(Patient patient) {
+        ensureIndexed();
+        reservePatientId(patient.getPatientId());
+        Patient previous = patients.put(patient.getPatientId(), patient);
+        if (previous != null) {
+            detachPatient(patient.getPatientId(), previous);
+        }
+        attachPatient(patient.getPatientId(), patient);
+        publishChange(previous == null ? PatientChangeType.CREATED : PatientChangeType.UPDATED,
+            patient.getPatientId(), previous, patient);
         System.out.println("Patient added: " + patient.getPatientId() + " - " + patient.getFullName());
     }
     
+    /**
+     * Add a batch of patients with a single index and statistics update.
+     * A later patient in the batch replaces an earlier one with the same ID.
+     * @param batch Patients to add
+     */
+    public void addPatients(Collection<Patient> batch) {
+        ensureIndexed();
+        Map<String, Patient> unique = new LinkedHashMap<>();
+        for (Patient patient : batch) {
+            unique.put(patient.getPatientId(), patient);
+        }
+        
+        Map<String, Patient> replaced = new HashMap<>();
+        for (Patient patient : unique.values()) {
+            reservePatientId(patient.getPatientId());
+            Patient previous = patients.put(patient.getPatientId(), patient);
+            if (previous != null) {
+                detachPatient(patient.getPatientId(), previous);
+                replaced.put(patient.getPatientId(), previous);
+            }
+        }
+        
+        demographics.addAll(unique.values());
+        if (maintainIndexes) {
+            searchIndex.addAll(unique.values());
+            attributeIndex.addAll(unique.values());
+            for (Patient patient : unique.values()) {
+                blockIndex.add(patient.getPatientId(), patient);
+                for (PagedIndex<Patient> pageIndex : pageIndexes.values()) {
+                    pageIndex.put(patient);
+                }
+            }
+        }
+        for (Patient patient : unique.values()) {
+            patient.setChangeListener(indexMaintainer);
+        }
+        if (changeStream.hasSubscribers()) {
+            for (Patient patient : unique.values()) {
+                Patient previous = replaced.get(patient.getPatientId());
+                publishChange(previous == null ? PatientChangeType.CREATED : PatientChangeType.UPDATED,
+                    patient.getPatientId(), previous, patient);
+            }
+        }
+        System.out.println("Patients added: " + unique.size());
+    }
+    
     /**
      * Get all patients in the system
      * @return List of all patients
@@ -53,13 +180,44 @@ public class PatientManager {
         return new ArrayList<>(patients.values());
     }
     
+    /**
+     * Get one page of patients
+     * @param sortKey Order to list patients in
+     * @param pageSize Maximum number of patients on the page
+     * @param continuationToken Token from the previous page, or null for the first page
+     * @return Page of patients with the token for the next page
+     */
+    public Page<Patient> getPatientsPage(PageSortKey sortKey, int pageSize, String continuationToken) {
+        PagedIndex<Patient> index = pageIndexes.get(sortKey);
+        if (index == null) {
+            throw new IllegalArgumentException("Unsupported sort key for patients: " + sortKey);
+        }
+        if (!maintainIndexes) {
+            return index.scan(new StoredPatients(), pageSize, continuationToken);
+        }
+        ensureIndexed();
+        return index.page(pageSize, continuationToken);
+    }
+    
     /**
      * Get a specific patient by ID
      * @param patientId Patient ID to search for
      * @return Patient object or null if not found
      */
     public Patient getPatient(String patientId) {
-        return patients.get(patientId);
+        return lookupPatient(patientId);
+    }
+    
+    /**
+     * Get a stored patient, making sure changes made through it are tracked.
+     * Storage backends that decode copies on demand return patients without a listener.
+     */
+    private Patient lookupPatient(String patientId) {
+        Patient patient = patients.get(patientId);
+        if (patient != null && patient.getChangeListener() == null) {
+            patient.setChangeListener(indexMaintainer);
+        }
+        return patient;
     }
     
     /**
@@ -69,8 +227,12 @@ public class PatientManager {
      * @return true if update successful, false otherwise
      */
     public boolean updatePatient(String patientId, Patient updatedPatient) {
-        if (patients.containsKey(patientId)) {
-            patients.put(patientId, updatedPatient);
+        ensureIndexed();
+        Patient previous = patients.replace(patientId, updatedPatient);
+        if (previous != null) {
+            detachPatient(patientId, previous);
+            attachPatient(patientId, updatedPatient);
+            publishChange(PatientChangeType.UPDATED, patientId, previous, updatedPatient);
             return true;
         }
         return false;
@@ -82,31 +244,70 @@ public class PatientManager {
      * @return true if removal successful, false otherwise
      */
     public boolean removePatient(String patientId) {
-        return patients.remove(patientId) != null;
+        ensureIndexed();
+        Patient removed = patients.remove(patientId);
+        if (removed != null) {
+            detachPatient(patientId, removed);
+            publishChange(PatientChangeType.REMOVED, patientId, removed, null);
+            return true;
+        }
+        return false;
     }
     
     /**
-     * Search patients by name or ID
-     * @param searchTerm Search term to match against name or ID
+     * Subscribe to the stream of patient changes made from now on.
+     * Events arrive in the order the changes were applied. A subscriber that
+     * falls a full buffer behind holds back further changes until it catches
+     * up, for at most PatientChangeStream.DEFAULT_BACKPRESSURE_TIMEOUT_MILLIS;
+     * after that it is cut off and its subscription reports isOverflowed().
+     * Changes are published while the patient is locked, so a subscriber
+     * that drains on a thread making changes will be cut off on a large
+     * batch; drain from a separate thread.
+     * @return Subscription to poll for change events
+     */
+    public PatientChangeSubscription subscribeToChanges() {
+        return changeStream.subscribe();
+    }
+    
+    /**
+     * Search patients by name, ID, phone or email
+     * @param searchTerm Search term to match as a substring
      * @return List of matching patients
      */
     public List<Patient> searchPatients(String searchTerm) {
-        return patients.values().stream()
-                .filter(patient -> 
-                    patient.getFullName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                    patient.getPatientId().toLowerCase().contains(searchTerm.toLowerCase()))
-                .collect(Collectors.toList());
+        String term = searchTerm.toLowerCase();
+        Collection<String> candidates = null;
+        if (maintainIndexes) {
+            ensureIndexed();
+            candidates = searchIndex.candidates(term);
+        }
+        if (candidates == null) {
+            // Terms shorter than a trigram cannot use the index
+            candidates = patients.keySet();
+        }
+        
+        List<Patient> results = new ArrayList<>();
+        for (String patientId : candidates) {
+            Patient patient = lookupPatient(patientId);
+            if (patient != null && PatientSearchIndex.matches(patient, term)) {
+                results.add(patient);
+            }
+        }
+        return results;
     }
     
     /**
      * Get patients by status
-     * @param status Status to filter by
+     * @param status Status to filter by; statuses outside PatientStatus match by their text
      * @return List of patients with specified status
      */
     public List<Patient> getPatientsByStatus(String status) {
-        return patients.values().stream()
-                .filter(patient -> patient.getStatus().equalsIgnoreCase(status))
-                .collect(Collectors.toList());
+        PatientStatus value = PatientStatus.fromString(status);
+        List<Patient> result = getPatients(value, null);
+        if (value == PatientStatus.UNKNOWN && status != null) {
+            result.removeIf(patient -> !patient.getStatus().equalsIgnoreCase(status.trim()));
+        }
+        return result;
     }
     
     /**
@@ -115,9 +316,97 @@ public class PatientManager {
      * @return List of patients with specified blood group
      */
     public List<Patient> getPatientsByBloodGroup(String bloodGroup) {
-        return patients.values().stream()
-                .filter(patient -> patient.getBloodGroup().equalsIgnoreCase(bloodGroup))
-                .collect(Collectors.toList());
+        return getPatients(null, BloodGroup.fromString(bloodGroup));
+    }
+    
+    /**
+     * Get patients matching both a status and a blood group
+     * @param status Status to match, or null for any status
+     * @param bloodGroup Blood group to match, or null for any blood group
+     * @return List of matching patients
+     */
+    public List<Patient> getPatients(PatientStatus status, BloodGroup bloodGroup) {
+        if (!maintainIndexes) {
+            List<Patient> result = new ArrayList<>();
+            for (Patient patient : new StoredPatients()) {
+                if (matches(patient, status, bloodGroup)) {
+                    result.add(patient);
+                }
+            }
+            return result;
+        }
+        ensureIndexed();
+        List<String> patientIds = attributeIndex.selectPatientIds(status, bloodGroup);
+        List<Patient> result = new ArrayList<>(patientIds.size());
+        for (String patientId : patientIds) {
+            Patient patient = lookupPatient(patientId);
+            if (patient != null) {
+                result.add(patient);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Count patients matching both a status and a blood group
+     * @param status Status to match, or null for any status
+     * @param bloodGroup Blood group to match, or null for any blood group
+     * @return Number of matching patients
+     */
+    public int countPatients(PatientStatus status, BloodGroup bloodGroup) {
+        if (!maintainIndexes) {
+            int count = 0;
+            for (Patient patient : new StoredPatients()) {
+                if (matches(patient, status, bloodGroup)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        ensureIndexed();
+        return attributeIndex.count(status, bloodGroup);
+    }
+    
+    private static boolean matches(Patient patient, PatientStatus status, BloodGroup bloodGroup) {
+        return (status == null || patient.getStatusValue() == status) &&
+               (bloodGroup == null || patient.getBloodGroupValue() == bloodGroup);
+    }
+    
+    /**
+     * Get IDs of stored patients that share a duplicate-detection block with a patient
+     * @param patient Patient to find candidates for, need not be stored
+     * @return Candidate patient IDs
+     */
+    public Set<String> getDuplicateCandidates(Patient patient) {
+        if (!maintainIndexes) {
+            List<String> keys = PatientBlockIndex.blockingKeys(patient);
+            Set<String> result = new HashSet<>();
+            for (Patient stored : new StoredPatients()) {
+                if (!Collections.disjoint(keys, PatientBlockIndex.blockingKeys(stored))) {
+                    result.add(stored.getPatientId());
+                }
+            }
+            return result;
+        }
+        ensureIndexed();
+        return blockIndex.candidates(patient);
+    }
+    
+    /**
+     * Get a snapshot of all duplicate-detection blocks holding more than one patient
+     * @return List of blocks of patient IDs
+     */
+    public List<Set<String>> getDuplicateBlocks() {
+        if (!maintainIndexes) {
+            // Built for this call only and dropped afterwards
+            PatientBlockIndex blocks = new PatientBlockIndex();
+            for (Patient patient : new StoredPatients()) {
+                blocks.add(patient.getPatientId(), patient);
+            }
+            return blocks.getBlocks();
+        }
+        ensureIndexed();
+        return blockIndex.getBlocks();
     }
     
     /**
@@ -125,7 +414,20 @@ public class PatientManager {
      * @return New patient ID
      */
     public String generatePatientId() {
-        return String.format("P%03d", patientCounter++);
+        return String.format("P%03d", patientCounter.getAndIncrement());
+    }
+    
+    /**
+     * Make sure generatePatientId never hands out an ID that was given
+     * explicitly. IDs in the generated form (P followed by digits) advance
+     * the counter past them; other IDs cannot collide with generated ones.
+     * @param patientId Patient ID about to be stored
+     */
+    public void reservePatientId(String patientId) {
+        if (patientId.matches("P\\d{1,9}")) {
+            int next = Integer.parseInt(patientId.substring(1)) + 1;
+            patientCounter.accumulateAndGet(next, Math::max);
+        }
     }
     
     /**
@@ -141,9 +443,8 @@ public class PatientManager {
      * @return Number of active patients
      */
     public int getActivePatients() {
-        return (int) patients.values().stream()
-                .filter(patient -> "Active".equalsIgnoreCase(patient.getStatus()))
-                .count();
+        ensureIndexed();
+        return demographics.getActiveCount();
     }
     
     /**
@@ -151,31 +452,148 @@ public class PatientManager {
      * @return Map of age groups and their counts
      */
     public Map<String, Integer> getPatientsByAgeGroup() {
-        Map<String, Integer> ageGroups = new HashMap<>();
-        ageGroups.put("0-18", 0);
-        ageGroups.put("19-35", 0);
-        ageGroups.put("36-50", 0);
-        ageGroups.put("51-65", 0);
-        ageGroups.put("65+", 0);
-        
-        for (Patient patient : patients.values()) {
-            int age = patient.getAge();
-            if (age <= 18) {
-                ageGroups.put("0-18", ageGroups.get("0-18") + 1);
-            } else if (age <= 35) {
-                ageGroups.put("19-35", ageGroups.get("19-35") + 1);
-            } else if (age <= 50) {
-                ageGroups.put("36-50", ageGroups.get("36-50") + 1);
-            } else if (age <= 65) {
-                ageGroups.put("51-65", ageGroups.get("51-65") + 1);
-            } else {
-                ageGroups.put("65+", ageGroups.get("65+") + 1);
-            }
+        ensureIndexed();
+        Map<String, Integer> ageGroups = new LinkedHashMap<>();
+        for (int i = 0; i < PatientDemographics.AGE_GROUPS.length; i++) {
+            ageGroups.put(PatientDemographics.AGE_GROUPS[i], demographics.getAgeGroupCount(i));
         }
-        
         return ageGroups;
     }
     
+    /**
+     * Get number of patients in an age group
+     * @param ageGroup Age group label such as "19-35"
+     * @return Number of patients in the age group
+     */
+    public int getAgeGroupCount(String ageGroup) {
+        ensureIndexed();
+        for (int i = 0; i < PatientDemographics.AGE_GROUPS.length; i++) {
+            if (PatientDemographics.AGE_GROUPS[i].equals(ageGroup)) {
+                return demographics.getAgeGroupCount(i);
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Get number of patients of a gender
+     * @param gender Gender to count (case-insensitive)
+     * @return Number of patients with the gender
+     */
+    public int getGenderCount(String gender) {
+        ensureIndexed();
+        return demographics.getGenderCount(gender);
+    }
+    
+    /**
+     * Start tracking a stored patient in the derived indexes
+     * @param patientId Patient ID the patient is stored under
+     * @param patient Patient being stored
+     */
+    private void attachPatient(String patientId, Patient patient) {
+        indexPatient(patientId, patient);
+        patient.setChangeListener(indexMaintainer);
+    }
+    
+    /**
+     * Stop tracking a patient that is no longer stored
+     * @param patientId Patient ID the patient was stored under
+     * @param patient Patient being dropped
+     */
+    private void detachPatient(String patientId, Patient patient) {
+        if (patient.getChangeListener() == indexMaintainer) {
+            patient.setChangeListener(null);
+        }
+        unindexPatient(patientId, patient);
+    }
+    
+    /**
+     * Called before a stored patient's indexed fields change.
+     * Only the stored patient is indexed, so a patient that is no longer the
+     * one stored under its ID must not take the stored patient's entries out.
+     * @param patient Patient about to change
+     */
+    protected void beforePatientChange(Patient patient) {
+        ensureIndexed();
+        if (patients.get(patient.getPatientId()) == patient) {
+            unindexPatient(patient.getPatientId(), patient);
+            if (changeStream.hasSubscribers()) {
+                pendingSnapshots.put(patient.getPatientId(), patient.copy());
+            }
+        }
+    }
+    
+    /**
+     * Called after a stored patient's indexed fields changed.
+     * The patient is written back so storage that encodes patients stays current.
+     * @param patient Patient that changed
+     */
+    protected void afterPatientChange(Patient patient) {
+        Patient before = pendingSnapshots.remove(patient.getPatientId());
+        if (patients.get(patient.getPatientId()) == patient) {
+            patients.replace(patient.getPatientId(), patient);
+            indexPatient(patient.getPatientId(), patient);
+            if (before != null) {
+                publishChange(PatientChangeType.UPDATED, patient.getPatientId(), before, patient);
+            }
+        }
+    }
+    
+    /**
+     * Publish a change with detached snapshots, if anyone is subscribed
+     * @param type Kind of change
+     * @param patientId Patient ID the change applies to
+     * @param before Patient before the change, or null
+     * @param after Patient after the change, or null
+     */
+    private void publishChange(PatientChangeType type, String patientId, Patient before, Patient after) {
+        if (changeStream.hasSubscribers()) {
+            changeStream.publish(type, patientId,
+                before == null ? null : before.copy(), after == null ? null : after.copy());
+        }
+    }
+    
+    /**
+     * Build the indexes (or, without maintained indexes, the demographic
+     * counts) over patients that were already stored when the manager was created
+     */
+    private void ensureIndexed() {
+        if (!indexed) {
+            synchronized (this) {
+                if (!indexed) {
+                    for (Map.Entry<String, Patient> entry : patients.entrySet()) {
+                        indexPatient(entry.getKey(), entry.getValue());
+                    }
+                    indexed = true;
+                }
+            }
+        }
+    }
+    
+    private void indexPatient(String patientId, Patient patient) {
+        demographics.add(patient);
+        if (maintainIndexes) {
+            searchIndex.add(patientId, patient);
+            attributeIndex.add(patientId, patient);
+            blockIndex.add(patientId, patient);
+            for (PagedIndex<Patient> pageIndex : pageIndexes.values()) {
+                pageIndex.put(patient);
+            }
+        }
+    }
+    
+    private void unindexPatient(String patientId, Patient patient) {
+        demographics.remove(patient);
+        if (maintainIndexes) {
+            searchIndex.remove(patientId, patient);
+            attributeIndex.remove(patientId, patient);
+            blockIndex.remove(patientId, patient);
+            for (PagedIndex<Patient> pageIndex : pageIndexes.values()) {
+                pageIndex.remove(patientId);
+            }
+        }
+    }
+    
     /**
      * Validate patient data
      * @param patient Patient to validate
@@ -193,14 +611,60 @@ public class PatientManager {
      * Display patient summary
      */
     public void displayPatientSummary() {
+        ensureIndexed();
         System.out.println("\n=== PATIENT SUMMARY ===");
         System.out.println("Total Patients: " + getTotalPatients());
         System.out.println("Active Patients: " + getActivePatients());
         
-        Map<String, Integer> ageGroups = getPatientsByAgeGroup();
         System.out.println("\nAge Distribution:");
-        for (Map.Entry<String, Integer> entry : ageGroups.entrySet()) {
-            System.out.println(entry.getKey() + ": " + entry.getValue());
+        for (int i = 0; i < PatientDemographics.AGE_GROUPS.length; i++) {
+            System.out.println(PatientDemographics.AGE_GROUPS[i] + ": " + demographics.getAgeGroupCount(i));
+        }
+        
+        System.out.println("\nGender Distribution:");
+        for (String gender : demographics.getGenders()) {
+            System.out.println(gender + ": " + demographics.getGenderCount(gender));
+        }
+    }
+    
+    /**
+     * Stored patients, looked up one at a time from a snapshot of the IDs
+     * so a scan holds no more than one decoded patient at once
+     */
+    private class StoredPatients implements Iterable<Patient> {
+        private final List<String> patientIds = new ArrayList<>(patients.keySet());
+        
+        @Override
+        public Iterator<Patient> iterator() {
+            return new Iterator<Patient>() {
+                private int next;
+                private Patient current = advance();
+                
+                private Patient advance() {
+                    while (next < patientIds.size()) {
+                        Patient patient = lookupPatient(patientIds.get(next++));
+                        if (patient != null) {
+                            return patient;
+                        }
+                    }
+                    return null;
+                }
+                
+                @Override
+                public boolean hasNext() {
+                    return current != null;
+                }
+                
+                @Override
+                public Patient next() {
+                    if (current == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Patient patient = current;
+                    current = advance();
+                    return patient;
+                }
+            };
         }
     }
 }
@@ -0,0 +1,135 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Patient Search Index Class
+ * Trigram inverted index over patient name, ID, phone and email.
+ * Posting lists are concurrent sets so the index can be shared by concurrent managers.
+ */
+class PatientSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    
+    private Map<String, Set<String>> postings;
+    
+    public PatientSearchIndex() {
+        this.postings = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Index a patient under every trigram of its searchable fields
+     * @param patientId Patient ID the patient is stored under
+     * @param patient Patient to index
+     */
+    public void add(String patientId, Patient patient) {
+        for (String gram : gramsOf(patient)) {
+            postings.compute(gram, (key, ids) -> {
+                Set<String> postingList = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                postingList.add(patientId);
+                return postingList;
+            });
+        }
+    }
+    
+    /**
+     * Index a batch of patients, merging each trigram's posting list once
+     * @param batch Patients to index under their own IDs
+     */
+    public void addAll(Collection<Patient> batch) {
+        Map<String, List<String>> batchPostings = new HashMap<>();
+        for (Patient patient : batch) {
+            for (String gram : gramsOf(patient)) {
+                batchPostings.computeIfAbsent(gram, key -> new ArrayList<>()).add(patient.getPatientId());
+            }
+        }
+        
+        for (Map.Entry<String, List<String>> entry : batchPostings.entrySet()) {
+            postings.compute(entry.getKey(), (key, ids) -> {
+                Set<String> postingList = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                postingList.addAll(entry.getValue());
+                return postingList;
+            });
+        }
+    }
+    
+    /**
+     * Remove a patient from the index using its current field values
+     * @param patientId Patient ID the patient is stored under
+     * @param patient Patient to remove
+     */
+    public void remove(String patientId, Patient patient) {
+        for (String gram : gramsOf(patient)) {
+            // Drop empty posting lists atomically with respect to concurrent adds
+            postings.computeIfPresent(gram, (key, ids) -> {
+                ids.remove(patientId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+    
+    /**
+     * Get candidate patient IDs for a lowercase search term.
+     * Candidates contain every trigram of the term and must still be verified with {@link #matches}.
+     * @param term Lowercase search term
+     * @return Candidate IDs, or null if the term is too short to use the index
+     */
+    public Set<String> candidates(String term) {
+        if (term.length() < GRAM_LENGTH) {
+            return null;
+        }
+        
+        List<Set<String>> lists = new ArrayList<>();
+        for (String gram : gramsOf(term, new HashSet<>())) {
+            Set<String> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            lists.add(ids);
+        }
+        
+        // Intersect starting from the shortest posting list
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<String> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+    
+    /**
+     * Check if any searchable field of a patient contains the term
+     * @param patient Patient to check
+     * @param term Lowercase search term
+     * @return true if matched
+     */
+    public static boolean matches(Patient patient, String term) {
+        for (String field : searchableFields(patient)) {
+            if (field != null && field.toLowerCase().contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String[] searchableFields(Patient patient) {
+        return new String[] {
+            patient.getFullName(), patient.getPatientId(), patient.getPhone(), patient.getEmail()
+        };
+    }
+    
+    private static Set<String> gramsOf(Patient patient) {
+        Set<String> grams = new HashSet<>();
+        for (String field : searchableFields(patient)) {
+            if (field != null) {
+                gramsOf(field.toLowerCase(), grams);
+            }
+        }
+        return grams;
+    }
+    
+    private static Set<String> gramsOf(String text, Set<String> grams) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
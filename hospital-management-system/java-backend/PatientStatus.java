@@ -0,0 +1,42 @@
+/**
+ * Patient Status Enumeration
+ * Defines the possible states of a patient record
+ */
+public enum PatientStatus {
+    ACTIVE("Active"),
+    INACTIVE("Inactive"),
+    UNKNOWN("Unknown");
+    
+    private final String displayName;
+    
+    PatientStatus(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+    
+    /**
+     * Get PatientStatus from string
+     * @param status String representation of status
+     * @return PatientStatus enum value, UNKNOWN if not recognized (Patient keeps the text)
+     */
+    public static PatientStatus fromString(String status) {
+        if (status != null) {
+            String value = status.trim();
+            for (PatientStatus patientStatus : PatientStatus.values()) {
+                if (patientStatus.displayName.equalsIgnoreCase(value) ||
+                    patientStatus.name().equalsIgnoreCase(value)) {
+                    return patientStatus;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+}
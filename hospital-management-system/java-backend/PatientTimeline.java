@@ -0,0 +1,128 @@
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Patient Timeline Class
+ * A patient's chart: appointments and invoices interleaved by date. Both
+ * managers keep a per-patient index of their records, so building a
+ * timeline costs time in the number of the patient's records, not in the
+ * number of records in the hospital.
+ */
+public class PatientTimeline {
+    private AppointmentManager appointmentManager;
+    private BillingManager billingManager;
+    
+    public PatientTimeline(AppointmentManager appointmentManager, BillingManager billingManager) {
+        this.appointmentManager = appointmentManager;
+        this.billingManager = billingManager;
+    }
+    
+    /**
+     * Get a patient's appointments and invoices, oldest first. Events on the
+     * same date are ordered by time; invoices come after the appointments of
+     * their date.
+     * @param patientId Patient ID
+     * @return Time-ordered events of the patient
+     */
+    public List<TimelineEvent> getTimeline(String patientId) {
+        List<TimelineEvent> events = new ArrayList<>();
+        for (Appointment appointment : appointmentManager.getAppointmentsByPatient(patientId)) {
+            events.add(new TimelineEvent(appointment));
+        }
+        for (Invoice invoice : billingManager.getInvoicesByPatient(patientId)) {
+            events.add(new TimelineEvent(invoice));
+        }
+        events.sort(Comparator.comparing(TimelineEvent::getDate)
+            .thenComparing(TimelineEvent::getType)
+            .thenComparing(event -> event.getTime() == null ? LocalTime.MIDNIGHT : event.getTime())
+            .thenComparing(TimelineEvent::getReferenceId));
+        return events;
+    }
+    
+    /**
+     * Display a patient's timeline
+     * @param patientId Patient ID
+     */
+    public void displayTimeline(String patientId) {
+        List<TimelineEvent> events = getTimeline(patientId);
+        System.out.println("\n=== PATIENT TIMELINE: " + patientId + " ===");
+        if (events.isEmpty()) {
+            System.out.println("No appointments or invoices found.");
+            return;
+        }
+        for (TimelineEvent event : events) {
+            System.out.println(event);
+        }
+    }
+}
+
+/**
+ * Timeline Event Class
+ * One appointment or invoice on a patient's timeline
+ */
+class TimelineEvent {
+    private TimelineEventType type;
+    private LocalDate date;
+    private LocalTime time;
+    private Appointment appointment;
+    private Invoice invoice;
+    
+    public TimelineEvent(Appointment appointment) {
+        this.type = TimelineEventType.APPOINTMENT;
+        this.date = appointment.getLocalDate();
+        this.time = appointment.getLocalTime();
+        this.appointment = appointment;
+    }
+    
+    public TimelineEvent(Invoice invoice) {
+        this.type = TimelineEventType.INVOICE;
+        this.date = invoice.getLocalDate();
+        this.invoice = invoice;
+    }
+    
+    // Getters
+    public TimelineEventType getType() { return type; }
+    public LocalDate getDate() { return date; }
+    public LocalTime getTime() { return time; }
+    public Appointment getAppointment() { return appointment; }
+    public Invoice getInvoice() { return invoice; }
+    
+    public String getReferenceId() {
+        return appointment != null ? appointment.getAppointmentId() : invoice.getInvoiceId();
+    }
+    
+    @Override
+    public String toString() {
+        if (appointment != null) {
+            return String.format("%s %-5s %-12s %-10s %s, %s (%s)", date, time, type,
+                appointment.getAppointmentId(), appointment.getType(), appointment.getDoctorName(),
+                appointment.getStatus());
+        }
+        return String.format("%s %-5s %-12s %-10s $%s (%s)", date, "", type,
+            invoice.getInvoiceId(), invoice.getTotal(), invoice.getStatus());
+    }
+}
+
+/**
+ * Timeline Event Type Enumeration
+ */
+enum TimelineEventType {
+    APPOINTMENT("Appointment"),
+    INVOICE("Invoice");
+    
+    private final String displayName;
+    
+    TimelineEventType(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
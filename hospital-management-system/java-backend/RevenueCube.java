@@ -0,0 +1,131 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Revenue Cube Class
+ * Invoice totals pre-aggregated by (year, month, payment status) and by
+ * (year, month, payment status, department), plus a per-year rollup. The
+ * billing manager moves an invoice's total between cells when the invoice
+ * is stored or changes status, so a month or year total is a single map
+ * lookup and a quarter is three, however many invoices there are.
+ * Amounts are in minor units (cents). All public methods are synchronized,
+ * so reports can read while invoices are stored and change status.
+ */
+class RevenueCube {
+    private static final int STATUS_COUNT = PaymentStatus.values().length;
+    
+    private Map<Integer, long[]> monthTotals;
+    private Map<Integer, long[]> yearTotals;
+    private Map<String, Map<Integer, long[]>> departmentMonthTotals;
+    
+    public RevenueCube() {
+        this.monthTotals = new HashMap<>();
+        this.yearTotals = new HashMap<>();
+        this.departmentMonthTotals = new HashMap<>();
+    }
+    
+    /**
+     * Count an invoice under its current status
+     * @param invoice Invoice being stored
+     */
+    public synchronized void add(Invoice invoice) {
+        apply(invoice, invoice.getStatus(), invoice.getTotal().getMinorUnits());
+    }
+    
+    /**
+     * Stop counting an invoice under its current status
+     * @param invoice Invoice being replaced
+     */
+    public synchronized void remove(Invoice invoice) {
+        apply(invoice, invoice.getStatus(), -invoice.getTotal().getMinorUnits());
+    }
+    
+    /**
+     * Move an invoice's total from one status to another
+     * @param invoice Invoice
+     * @param from Previous status
+     * @param to New status
+     */
+    public synchronized void move(Invoice invoice, PaymentStatus from, PaymentStatus to) {
+        if (from != to) {
+            apply(invoice, from, -invoice.getTotal().getMinorUnits());
+            apply(invoice, to, invoice.getTotal().getMinorUnits());
+        }
+    }
+    
+    private void apply(Invoice invoice, PaymentStatus status, long minorUnits) {
+        LocalDate date = invoice.getLocalDate();
+        int month = monthKey(date.getYear(), date.getMonthValue());
+        int index = status.ordinal();
+        long[] cell = monthTotals.computeIfAbsent(month, key -> new long[STATUS_COUNT]);
+        cell[index] = Money.add(cell[index], minorUnits);
+        cell = yearTotals.computeIfAbsent(date.getYear(), key -> new long[STATUS_COUNT]);
+        cell[index] = Money.add(cell[index], minorUnits);
+        cell = departmentMonthTotals.computeIfAbsent(invoice.getDepartment(), key -> new HashMap<>())
+            .computeIfAbsent(month, key -> new long[STATUS_COUNT]);
+        cell[index] = Money.add(cell[index], minorUnits);
+    }
+    
+    /**
+     * Get the total of a month's invoices with a status
+     * @param year Year
+     * @param month Month (1-12)
+     * @param status Payment status
+     * @return Total in cents
+     */
+    public synchronized long getMonth(int year, int month, PaymentStatus status) {
+        return read(monthTotals.get(monthKey(year, month)), status);
+    }
+    
+    /**
+     * Get the total of a department's invoices in a month with a status
+     * @param year Year
+     * @param month Month (1-12)
+     * @param status Payment status
+     * @param department Department
+     * @return Total in cents
+     */
+    public synchronized long getMonth(int year, int month, PaymentStatus status, String department) {
+        Map<Integer, long[]> months = departmentMonthTotals.get(department);
+        return months == null ? 0 : read(months.get(monthKey(year, month)), status);
+    }
+    
+    /**
+     * Get the total of a quarter's invoices with a status
+     * @param year Year
+     * @param quarter Quarter (1-4)
+     * @param status Payment status
+     * @return Total in cents
+     */
+    public synchronized long getQuarter(int year, int quarter, PaymentStatus status) {
+        if (quarter < 1 || quarter > 4) {
+            throw new IllegalArgumentException("Quarter must be 1-4: " + quarter);
+        }
+        long total = 0;
+        for (int month = quarter * 3 - 2; month <= quarter * 3; month++) {
+            total = Money.add(total, getMonth(year, month, status));
+        }
+        return total;
+    }
+    
+    /**
+     * Get the total of a year's invoices with a status
+     * @param year Year
+     * @param status Payment status
+     * @return Total in cents
+     */
+    public synchronized long getYear(int year, PaymentStatus status) {
+        return read(yearTotals.get(year), status);
+    }
+    
+    private static long read(long[] cell, PaymentStatus status) {
+        return cell == null ? 0 : cell[status.ordinal()];
+    }
+    
+    private static int monthKey(int year, int month) {
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("Month must be 1-12: " + month);
+        }
+        return year * 12 + month - 1;
+    }
+}
@@ -10,10 +10,16 @@ import java.util.stream.Collectors;
 public class StaffManager {
     private Map<String, StaffMember> staff;
     private int staffCounter;
+    private Map<PageSortKey, PagedIndex<StaffMember>> pageIndexes;
     
     public StaffManager() {
         this.staff = new HashMap<>();
         this.staffCounter = 6; // Starting from S006
+        this.pageIndexes = new EnumMap<>(PageSortKey.class);
+        pageIndexes.put(PageSortKey.ID, new PagedIndex<>(PageSortKey.ID,
+            StaffMember::getStaffId, StaffMember::getStaffId, staff::get));
+        pageIndexes.put(PageSortKey.NAME, new PagedIndex<>(PageSortKey.NAME, StaffMember::getStaffId,
+            member -> (member.getLastName() + ", " + member.getFirstName()).toLowerCase(), staff::get));
         initializeSampleData();
     }
     
@@ -39,6 +45,9 @@ public class StaffManager {
      */
     public void addStaffMember(StaffMember staffMember) {
         staff.put(staffMember.getStaffId(), staffMember);
+        for (PagedIndex<StaffMember> pageIndex : pageIndexes.values()) {
+            pageIndex.put(staffMember);
+        }
         System.out.println("Staff member added: " + staffMember.getStaffId() + 
             " - " + staffMember.getFullName());
     }
@@ -51,6 +60,21 @@ public class StaffManager {
         return new ArrayList<>(staff.values());
     }
     
+    /**
+     * Get one page of staff members
+     * @param sortKey Order to list staff members in
+     * @param pageSize Maximum number of staff members on the page
+     * @param continuationToken Token from the previous page, or null for the first page
+     * @return Page of staff members with the token for the next page
+     */
+    public Page<StaffMember> getStaffPage(PageSortKey sortKey, int pageSize, String continuationToken) {
+        PagedIndex<StaffMember> index = pageIndexes.get(sortKey);
+        if (index == null) {
+            throw new IllegalArgumentException("Unsupported sort key for staff members: " + sortKey);
+        }
+        return index.page(pageSize, continuationToken);
+    }
+    
     /**
      * Get specific staff member by ID
      * @param staffId Staff ID
@@ -200,7 +224,7 @@ class StaffMember {
         this.firstName = firstName;
         this.lastName = lastName;
         this.role = role;
-        this.department = department;
+        this.department = StringDictionary.DEPARTMENTS.canonicalize(department);
         this.phone = phone;
         this.email = email;
         this.hireDate = hireDate;
@@ -229,7 +253,7 @@ class StaffMember {
     public void setSalary(double salary) { this.salary = salary; }
     public void setPhone(String phone) { this.phone = phone; }
     public void setEmail(String email) { this.email = email; }
-    public void setDepartment(String department) { this.department = department; }
+    public void setDepartment(String department) { this.department = StringDictionary.DEPARTMENTS.canonicalize(department); }
 }
 
 /**
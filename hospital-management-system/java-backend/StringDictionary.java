@@ -0,0 +1,69 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * String Dictionary Class
+ * Thread-safe, bounded dictionary for highly repetitive entity attributes.
+ * Each distinct value is stored once and entities keep a reference to that
+ * shared instance instead of their own copy.
+ * A dictionary holds at most maxValues values; when it fills up it starts
+ * over, so values no entity uses any more are dropped and an attribute with
+ * unexpectedly many distinct values cannot grow it without limit. Entities
+ * keep the instances they already share.
+ */
+class StringDictionary {
+    public static final int DEFAULT_MAX_VALUES = 4096;
+    
+    // Shared dictionaries, one per attribute domain
+    public static final StringDictionary GENDERS = new StringDictionary();
+    public static final StringDictionary INSURANCE_CARRIERS = new StringDictionary();
+    public static final StringDictionary DEPARTMENTS = new StringDictionary();
+    public static final StringDictionary DOCTOR_NAMES = new StringDictionary();
+    public static final StringDictionary APPOINTMENT_TYPES = new StringDictionary();
+    public static final StringDictionary CATEGORIES = new StringDictionary();
+    public static final StringDictionary SUPPLIERS = new StringDictionary();
+    
+    private ConcurrentHashMap<String, String> values;
+    private int maxValues;
+    
+    public StringDictionary() {
+        this(DEFAULT_MAX_VALUES);
+    }
+    
+    public StringDictionary(int maxValues) {
+        if (maxValues <= 0) {
+            throw new IllegalArgumentException("Maximum values must be positive: " + maxValues);
+        }
+        this.values = new ConcurrentHashMap<>();
+        this.maxValues = maxValues;
+    }
+    
+    /**
+     * Get the shared instance of a value, adding it to the dictionary if new
+     * @param value Value to share, may be null
+     * @return Shared instance equal to the value, or null for null
+     */
+    public String canonicalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = values.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        
+        // Concurrent callers may each clear or add one more value; the bound stays approximate
+        if (values.size() >= maxValues) {
+            values.clear();
+        }
+        shared = values.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+    
+    /**
+     * Get number of distinct values in the dictionary
+     * @return Distinct value count
+     */
+    public int size() {
+        return values.size();
+    }
+}